@@ -1,7 +1,17 @@
 package io.github.senthilganeshs.fj.ds;
 
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
 
 public interface Array<T> extends Collection<T> {
 
@@ -9,95 +19,554 @@ public interface Array<T> extends Collection<T> {
 
     public Maybe<T> remove(int index);
 
+    /**
+     * Removes the first element in O(1).
+     * 
+     * @return
+     */
     public Array<T> shift();
 
+    /**
+     * View of the elements from start sharing the backing store of this
+     * array. Views are created in O(1); writing to a view or to the array
+     * it was taken from copies the store first, so neither sees the
+     * other's changes.
+     */
+    @Override Array<T> slice(final int start, final int n);
+
+    @Override Array<T> take(final int n);
+
+    @Override Array<T> drop(final int n);
+
+    /**
+     * Copies the elements into a backing store of their own, exactly as
+     * large as needed, releasing the one shared with views or left larger
+     * by removals.
+     * 
+     * @return
+     */
+    public Array<T> compact();
+
+    public static <R> Collector<R, ?, Array<R>> collector() {
+        return Collection.collector(() -> new NonEmpty<>(16));
+    }
+
+    /**
+     * Append-only array which several threads can build on at once.
+     * 
+     * @return
+     */
+    public static <R> Concurrent<R> concurrent() {
+        return new Concurrent<>();
+    }
+
     final static class NonEmpty<T> implements Array<T> {
 
         private Object[] values;
+        //the elements are values[offset] to values[offset + cursor - 1].
+        private int offset;
         private int cursor;
         private int capacity;
         private final int initialCapacity;
+        //the backing store is visible to a view, so the next write copies it.
+        private boolean shared;
 
         NonEmpty(int capacity) {
             this.initialCapacity = capacity;
             this.capacity = capacity;
             this.values = new Object[capacity];
+            this.offset = 0;
             this.cursor = 0;
         }
 
+        private NonEmpty(final Object[] values, final int offset, final int length, final int initialCapacity) {
+            this.initialCapacity = initialCapacity;
+            this.capacity = length;
+            this.values = values;
+            this.offset = offset;
+            this.cursor = length;
+            this.shared = true;
+        }
+
         @Override
         public <R> Collection<R> empty() {
-            return new NonEmpty<>(this.values.length);
+            return new NonEmpty<>(capacity);
         }
 
         @Override
         public Collection<T> build(T input) {
-            if (cursor == this.values.length - 1) {
-                this.capacity += capacity;
-                this.values = Arrays.copyOf(this.values, capacity);
+            if (shared || offset + cursor == values.length) {
+                //grows only when more than half full, otherwise the free
+                //space left in front by shift is reclaimed.
+                own(cursor >= capacity / 2 ? capacity + Math.max(capacity, 1) : capacity);
             }
 
-            values[cursor + 1] = input;
+            values[offset + cursor] = input;
             cursor ++;
             return this;
         }
 
+        /*
+         * Moves the elements to the start of a backing store of their own.
+         */
+        private void own(final int newCapacity) {
+            final Object[] res = new Object[newCapacity];
+            System.arraycopy(values, offset, res, 0, cursor);
+            this.values = res;
+            this.capacity = newCapacity;
+            this.offset = 0;
+            this.shared = false;
+        }
+
         @SuppressWarnings("unchecked")
         @Override
         public <R> R foldl(R seed, BiFunction<R, T, R> fn) {
             R res = seed;
-            for (int i = 0 ; i <= cursor; i++) {
+            for (int i = offset, end = offset + cursor; i < end; i++) {
                res = fn.apply(res, (T) values[i]);     
             }
             return res;
         }
 
+        @SuppressWarnings("unchecked")
+        @Override
+        public <R> R foldWhile(R seed, BiFunction<R, T, R> fn, Predicate<R> pred) {
+            R res = seed;
+            for (int i = offset, end = offset + cursor; i < end && pred.test(res); i++) {
+               res = fn.apply(res, (T) values[i]);     
+            }
+            return res;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <R> R foldr(R seed, BiFunction<T, R, R> fn) {
+            R res = seed;
+            for (int i = offset + cursor - 1 ; i >= offset; i--) {
+               res = fn.apply((T) values[i], res);     
+            }
+            return res;
+        }
+
+        @Override
+        public int length() {
+            return cursor;
+        }
+
+        /*
+         * Fills an array of the same capacity directly instead of building it
+         * one element at a time.
+         */
+        @SuppressWarnings("unchecked")
+        @Override
+        public <R> Collection<R> map(final Function<T, R> fn) {
+            final NonEmpty<R> res = new NonEmpty<>(capacity);
+            for (int i = 0; i < cursor; i++) {
+                res.values[i] = fn.apply((T) values[offset + i]);
+            }
+            res.cursor = cursor;
+            return res;
+        }
+
+        @Override
+        public Array<T> slice(final int start, final int n) {
+            final int from = Math.min(Math.max(start, 0), cursor);
+            final int length = n <= 0 ? 0 : Math.min(n, cursor - from);
+            shared = true;
+            return new NonEmpty<>(values, offset + from, length, initialCapacity);
+        }
+
+        @Override
+        public Array<T> take(final int n) {
+            return slice(0, n);
+        }
+
+        @Override
+        public Array<T> drop(final int n) {
+            return slice(n, cursor);
+        }
+
+        @Override
+        public Array<T> compact() {
+            own(Math.max(cursor, 1));
+            return this;
+        }
+
+        @Override
+        public Collection<Collection<T>> split() {
+            return halves(values, offset, offset + cursor);
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return Spliterators.iterator(spliterator());
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Spliterator<T> spliterator() {
+            return Spliterators.spliterator((T[]) values, offset, offset + cursor, characteristics());
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean equals(final Object other) {
+            if (other == null) return false;
+            if (other == this) return true;
+            if (other instanceof NonEmpty) {
+                final NonEmpty<T> aOther = (NonEmpty<T>) other;
+                if (aOther.cursor != cursor)
+                    return false;
+                for (int i = 0; i < cursor; i++) {
+                    if (!Objects.equals(aOther.values[aOther.offset + i], values[offset + i]))
+                        return false;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        /*
+         * Computed on every call as the array is mutable.
+         */
+        @Override
+        public int hashCode() {
+            int res = 1;
+            for (int i = offset, end = offset + cursor; i < end; i++) {
+                res = 31 * res + Objects.hashCode(values[i]);
+            }
+            return res;
+        }
+
         @SuppressWarnings("unchecked")
         @Override
         public Maybe<T> at(int index) {
-            if (index < 0 || index >= capacity || index > cursor) {
+            if (index < 0 || index >= cursor) {
                 return Maybe.nothing();
             }
-            return Maybe.some((T) values[index]);
+            return Maybe.some((T) values[offset + index]);
         }
 
         @SuppressWarnings("unchecked")
         @Override
         public Maybe<T> remove(int index) {
-            if (index < 0 || index >= capacity || index > cursor) {
+            if (index < 0 || index >= cursor) {
                 return Maybe.nothing();
             }
-            T atIndex = (T) values[index];
-            for (int i = index; i < cursor; i++) {
-                this.values[i] = this.values[i + 1];
+            if (shared) {
+                own(capacity);
             }
+            T atIndex = (T) values[offset + index];
+            System.arraycopy(values, offset + index + 1, values, offset + index, cursor - index - 1);
             this.cursor --;
+            this.values[offset + cursor] = null;
             if (cursor < capacity / 2 && capacity > initialCapacity) {
-                this.capacity = this.capacity / 2;
-                if (this.capacity < initialCapacity) {
-                    this.capacity = initialCapacity;
-                }
-                this.values = Arrays.copyOf(this.values, capacity / 2);
+                own(Math.max(capacity / 2, initialCapacity));
             }
             return Maybe.some(atIndex);
         }
 
+        /*
+         * Moves the start of the window, the free slot is reclaimed when the
+         * array next grows or is compacted.
+         */
         @Override
         public Array<T> shift() {
             if(cursor == 0) {
                 return this; // Can't shift empty array.
             }
-            this.values = Arrays.copyOfRange(this.values, 1, this.cursor);
+            if (!shared) {
+                this.values[offset] = null;
+            }
+            this.offset ++;
             this.cursor --;
-            if (cursor < capacity / 2 && capacity > initialCapacity) {
-                this.capacity = this.capacity / 2;
-                if (this.capacity < initialCapacity) {
-                    this.capacity = initialCapacity;
-                }
-                this.values = Arrays.copyOf(this.values, capacity / 2);
+            return this;
+        }
+    }
+
+    /**
+     * Read-only window over part of a backing store, used to split arrays and
+     * linked structures into parts without copying their elements.
+     */
+    final static class Range<T> implements Collection<T> {
+
+        private final Object[] values;
+        private final int from;
+        private final int to;
+
+        Range (final Object[] values, final int from, final int to) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public <R> Collection<R> empty() {
+            return new NonEmpty<>(Math.max(to - from, 1));
+        }
+
+        @Override
+        public Collection<T> build(T input) {
+            final Collection<T> seed = empty();
+            return foldl(seed, (r, t) -> r.build(t)).build(input);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <R> R foldl(R seed, BiFunction<R, T, R> fn) {
+            R res = seed;
+            for (int i = from ; i < to; i++) {
+               res = fn.apply(res, (T) values[i]);     
+            }
+            return res;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <R> R foldWhile(R seed, BiFunction<R, T, R> fn, Predicate<R> pred) {
+            R res = seed;
+            for (int i = from ; i < to && pred.test(res); i++) {
+               res = fn.apply(res, (T) values[i]);     
+            }
+            return res;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <R> R foldr(R seed, BiFunction<T, R, R> fn) {
+            R res = seed;
+            for (int i = to - 1 ; i >= from; i--) {
+               res = fn.apply((T) values[i], res);     
+            }
+            return res;
+        }
+
+        @Override
+        public int length() {
+            return to - from;
+        }
+
+        @Override
+        public Collection<Collection<T>> split() {
+            return halves(values, from, to);
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return Spliterators.iterator(spliterator());
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Spliterator<T> spliterator() {
+            return Spliterators.spliterator((T[]) values, from, to, characteristics());
+        }
+    }
+
+    /**
+     * Lock-free append-only array. Elements live in segments which double
+     * in size up to a million slots and are installed with a CAS and never
+     * copied, so growing does not move what other threads are reading or
+     * writing. Capping the size bounds what is wasted when several threads
+     * race to install the same segment.
+     *
+     * An append claims its index with getAndIncrement, publishes the element
+     * into the slot and then moves the published length over every filled
+     * slot in front of it. A slot still being filled by a slower thread
+     * stops the move; that thread carries it on once it is done, so no
+     * append waits for another.
+     *
+     * Readers only see the published prefix. Folds, iterators and length
+     * read the published length once and never block, so each of them
+     * observes a consistent snapshot while appends go on.
+     */
+    final static class Concurrent<T> implements Collection<T> {
+
+        private static final int FIRST_SHIFT = 4;
+        private static final int FIRST = 1 << FIRST_SHIFT;
+        private static final int LAST_SHIFT = 20;
+        //segments before this one double in size, the rest have 1 << LAST_SHIFT slots.
+        private static final int FIXED = LAST_SHIFT - FIRST_SHIFT + 1;
+        private static final int FIXED_START = (1 << (LAST_SHIFT + 1)) - FIRST;
+        //stands for a null element, as an empty slot is null.
+        private static final Object NULL = new Object();
+
+        private final AtomicReferenceArray<AtomicReferenceArray<Object>> segments =
+            new AtomicReferenceArray<>(segment(Integer.MAX_VALUE - FIRST) + 2);
+        private final AtomicInteger claimed = new AtomicInteger();
+        private final AtomicInteger published = new AtomicInteger();
+
+        Concurrent () {
+            segments.set(0, new AtomicReferenceArray<>(FIRST));
+        }
+
+        @Override
+        public <R> Collection<R> empty() {
+            return new Concurrent<>();
+        }
+
+        @Override
+        public Concurrent<T> build(final T input) {
+            final int index = claimed.getAndIncrement();
+            if (index < 0 || index > Integer.MAX_VALUE - FIRST)
+                throw new IllegalStateException("concurrent array is full");
+            final int segment = segment(index);
+            final int offset = offset(index);
+            if (offset == 0) {
+                //the next segment is installed well before it is reached, so
+                //threads rarely race to allocate one.
+                install(segment + 1);
+            }
+            install(segment).set(offset, input == null ? NULL : input);
+            int length = published.get();
+            while (isFilled(length)) {
+                //a failed CAS means another thread moved it over the same slot.
+                published.compareAndSet(length, length + 1);
+                length = published.get();
             }
             return this;
         }
+
+        public Maybe<T> at(final int index) {
+            if (index < 0 || index >= published.get())
+                return Maybe.nothing();
+            return Maybe.some(get(index));
+        }
+
+        @Override
+        public int length() {
+            return published.get();
+        }
+
+        @Override
+        public <R> R foldl(final R seed, final BiFunction<R, T, R> fn) {
+            return foldWhile(seed, fn, r -> true);
+        }
+
+        @Override
+        public <R> R foldWhile(final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred) {
+            final int length = published.get();
+            R res = seed;
+            int index = 0;
+            for (int segment = 0; index < length && pred.test(res); segment++) {
+                final AtomicReferenceArray<Object> slots = segments.get(segment);
+                for (int i = 0; i < slots.length() && index < length && pred.test(res); i++, index++) {
+                    res = fn.apply(res, value(slots.get(i)));
+                }
+            }
+            return res;
+        }
+
+        @Override
+        public <R> R foldr(final R seed, final BiFunction<T, R, R> fn) {
+            R res = seed;
+            for (int index = published.get() - 1; index >= 0; index--) {
+                res = fn.apply(get(index), res);
+            }
+            return res;
+        }
+
+        /**
+         * Copies the published elements into a plain array.
+         * 
+         * @return
+         */
+        public Array<T> snapshot() {
+            final int length = published.get();
+            final NonEmpty<T> res = new NonEmpty<>(Math.max(length, 1));
+            for (int index = 0; index < length; index++) {
+                res.build(get(index));
+            }
+            return res;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return iterator(published.get());
+        }
+
+        @Override
+        public Spliterator<T> spliterator() {
+            final int length = published.get();
+            return Spliterators.spliterator(iterator(length), length, characteristics());
+        }
+
+        private Iterator<T> iterator(final int length) {
+            return new Iterator<T>() {
+                private int index = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return index < length;
+                }
+
+                @Override
+                public T next() {
+                    if (index >= length)
+                        throw new NoSuchElementException();
+                    return get(index++);
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            return foldl(
+                new StringBuilder("["),
+                (r, t) -> r.length() == 1 ? r.append(t) : r.append(",").append(t))
+                .append("]")
+                .toString();
+        }
+
+        private T get(final int index) {
+            return value(segments.get(segment(index)).get(offset(index)));
+        }
+
+        private boolean isFilled(final int index) {
+            if (index >= claimed.get())
+                return false;
+            final AtomicReferenceArray<Object> slots = segments.get(segment(index));
+            return slots != null && slots.get(offset(index)) != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T value(final Object slot) {
+            return slot == NULL ? null : (T) slot;
+        }
+
+        private AtomicReferenceArray<Object> install(final int segment) {
+            final AtomicReferenceArray<Object> slots = segments.get(segment);
+            if (slots != null || segment >= segments.length())
+                return slots;
+            segments.compareAndSet(segment, null,
+                new AtomicReferenceArray<>(segment < FIXED ? FIRST << segment : 1 << LAST_SHIFT));
+            return segments.get(segment);
+        }
+
+        /*
+         * Doubling segment k holds FIRST << k slots, starting at index (FIRST << k) - FIRST.
+         */
+        private static int segment(final int index) {
+            if (index >= FIXED_START)
+                return FIXED + ((index - FIXED_START) >>> LAST_SHIFT);
+            return Integer.SIZE - 1 - Integer.numberOfLeadingZeros(index + FIRST) - FIRST_SHIFT;
+        }
+
+        private static int offset(final int index) {
+            if (index >= FIXED_START)
+                return (index - FIXED_START) & ((1 << LAST_SHIFT) - 1);
+            final int position = index + FIRST;
+            return position - Integer.highestOneBit(position);
+        }
+    }
+
+    static <T> Collection<Collection<T>> halves(final Object[] values, final int from, final int to) {
+        final Collection<T> whole = new Range<>(values, from, to);
+        if (to - from <= 1)
+            return List.<Collection<T>>nil().build(whole);
+        final int mid = (from + to) >>> 1;
+        return List.<Collection<T>>nil()
+            .build(new Range<>(values, from, mid))
+            .build(new Range<>(values, mid, to));
     }
-    
 }
@@ -0,0 +1,712 @@
+package io.github.senthilganeshs.fj.ds;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact binary encoding of a value. Structure codecs are built from the
+ * codecs of their elements and write the element count as an unsigned
+ * varint followed by the elements in fold order; integers go as zig-zag
+ * varints, so small values of either sign take a single byte.
+ *
+ * Encoding and decoding stream through an {@link Encoder} or a
+ * {@link Decoder}, which move the bytes to and from a channel through one
+ * bounded buffer whatever the size of the payload. Counts read back are
+ * not trusted: storage for them is allocated in chunks as the elements
+ * arrive, so a bogus count ends in an {@link EOFException} rather than one
+ * huge allocation.
+ *
+ * @param <T>
+ */
+public interface Codec<T> {
+
+    void write(final Encoder out, final T value) throws IOException;
+
+    T read(final Decoder in) throws IOException;
+
+    /**
+     * Writes the value to the channel and flushes it.
+     *
+     * @param channel
+     * @param value
+     * @throws IOException
+     */
+    default void write(final WritableByteChannel channel, final T value) throws IOException {
+        final Encoder out = new Encoder(channel, Encoder.BUFFER);
+        write(out, value);
+        out.flush();
+    }
+
+    /**
+     * Reads one value from the channel. The decoder reads ahead, so use a
+     * {@link Decoder} directly to read several values from one channel.
+     *
+     * @param channel
+     * @return
+     * @throws IOException
+     */
+    default T read(final ReadableByteChannel channel) throws IOException {
+        return read(new Decoder(channel, Decoder.BUFFER));
+    }
+
+    default byte[] toBytes(final T value) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        write(Channels.newChannel(bytes), value);
+        return bytes.toByteArray();
+    }
+
+    default T fromBytes(final byte[] bytes) throws IOException {
+        return read(Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+
+    public static Codec<Integer> ints() {
+        return new Codec<Integer>() {
+            @Override
+            public void write(final Encoder out, final Integer value) throws IOException {
+                out.writeVarLong(zigzag(value));
+            }
+
+            @Override
+            public Integer read(final Decoder in) throws IOException {
+                return (int) unzigzag(in.readVarLong());
+            }
+        };
+    }
+
+    public static Codec<Long> longs() {
+        return new Codec<Long>() {
+            @Override
+            public void write(final Encoder out, final Long value) throws IOException {
+                out.writeVarLong(zigzag(value));
+            }
+
+            @Override
+            public Long read(final Decoder in) throws IOException {
+                return unzigzag(in.readVarLong());
+            }
+        };
+    }
+
+    public static Codec<Double> doubles() {
+        return new Codec<Double>() {
+            @Override
+            public void write(final Encoder out, final Double value) throws IOException {
+                out.writeDouble(value);
+            }
+
+            @Override
+            public Double read(final Decoder in) throws IOException {
+                return in.readDouble();
+            }
+        };
+    }
+
+    /**
+     * UTF-8 bytes prefixed with their count.
+     *
+     * @return
+     */
+    public static Codec<String> strings() {
+        return new Codec<String>() {
+            @Override
+            public void write(final Encoder out, final String value) throws IOException {
+                final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeVarInt(bytes.length);
+                out.writeBytes(bytes);
+            }
+
+            @Override
+            public String read(final Decoder in) throws IOException {
+                return new String(in.readBytes(in.readSize()), StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    /**
+     * Lets the element codec take null values, at the cost of a flag byte
+     * per value.
+     *
+     * @param codec
+     * @return
+     */
+    public static <R> Codec<R> nullable(final Codec<R> codec) {
+        return new Codec<R>() {
+            @Override
+            public void write(final Encoder out, final R value) throws IOException {
+                out.writeByte(value == null ? 0 : 1);
+                if (value != null)
+                    codec.write(out, value);
+            }
+
+            @Override
+            public R read(final Decoder in) throws IOException {
+                return in.readTag() == 0 ? null : codec.read(in);
+            }
+        };
+    }
+
+    public static <R> Codec<Maybe<R>> maybe(final Codec<R> codec) {
+        return new Codec<Maybe<R>>() {
+            @Override
+            public void write(final Encoder out, final Maybe<R> value) throws IOException {
+                out.writeByte(value.length());
+                writeAll(out, codec, value);
+            }
+
+            @Override
+            public Maybe<R> read(final Decoder in) throws IOException {
+                return in.readTag() == 0 ? Maybe.nothing() : Maybe.some(codec.read(in));
+            }
+        };
+    }
+
+    public static <P, Q> Codec<Either<P, Q>> either(final Codec<P> left, final Codec<Q> right) {
+        return new Codec<Either<P, Q>>() {
+            @Override
+            public void write(final Encoder out, final Either<P, Q> value) throws IOException {
+                if (value.isLeft()) {
+                    out.writeByte(0);
+                    left.write(out, value.fromLeft(null));
+                } else {
+                    out.writeByte(1);
+                    right.write(out, value.fromRight(null));
+                }
+            }
+
+            @Override
+            public Either<P, Q> read(final Decoder in) throws IOException {
+                return in.readTag() == 0 ? Either.left(left.read(in)) : Either.right(right.read(in));
+            }
+        };
+    }
+
+    public static <R> Codec<List<R>> list(final Codec<R> codec) {
+        return new Codec<List<R>>() {
+            @Override
+            public void write(final Encoder out, final List<R> value) throws IOException {
+                writeSized(out, codec, value);
+            }
+
+            @Override
+            public List<R> read(final Decoder in) throws IOException {
+                final int n = in.readSize();
+                Transient<R, List<R>> res = List.<R>nil().toTransient();
+                for (int i = 0; i < n; i++) {
+                    res = res.add(codec.read(in));
+                }
+                return res.persistent();
+            }
+        };
+    }
+
+    /**
+     * Writes the stack from the top down.
+     *
+     * @param codec
+     * @return
+     */
+    public static <R> Codec<Stack<R>> stack(final Codec<R> codec) {
+        return new Codec<Stack<R>>() {
+            @Override
+            public void write(final Encoder out, final Stack<R> value) throws IOException {
+                writeSized(out, codec, value);
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public Stack<R> read(final Decoder in) throws IOException {
+                final Object[] values = readValues(in, codec);
+                Stack<R> res = Stack.nil();
+                for (int i = values.length - 1; i >= 0; i--) {
+                    res = res.build((R) values[i]);
+                }
+                return res;
+            }
+        };
+    }
+
+    public static <R> Codec<Deque<R>> deque(final Codec<R> codec) {
+        return new Codec<Deque<R>>() {
+            @Override
+            public void write(final Encoder out, final Deque<R> value) throws IOException {
+                writeSized(out, codec, value);
+            }
+
+            @Override
+            public Deque<R> read(final Decoder in) throws IOException {
+                final Object[] values = readValues(in, codec);
+                return values.length == 0 ? Deque.nil() : Deque.Banker.balanced(values, values.length);
+            }
+        };
+    }
+
+    public static <R> Codec<Array<R>> array(final Codec<R> codec) {
+        return new Codec<Array<R>>() {
+            @Override
+            public void write(final Encoder out, final Array<R> value) throws IOException {
+                writeSized(out, codec, value);
+            }
+
+            @Override
+            public Array<R> read(final Decoder in) throws IOException {
+                final int n = in.readSize();
+                Array<R> res = new Array.NonEmpty<>(capacity(n));
+                for (int i = 0; i < n; i++) {
+                    res = (Array<R>) res.build(codec.read(in));
+                }
+                return res;
+            }
+        };
+    }
+
+    public static <R> Codec<Vector<R>> vector(final Codec<R> codec) {
+        return new Codec<Vector<R>>() {
+            @Override
+            public void write(final Encoder out, final Vector<R> value) throws IOException {
+                writeSized(out, codec, value);
+            }
+
+            @Override
+            public Vector<R> read(final Decoder in) throws IOException {
+                final int n = in.readSize();
+                Transient<R, Vector<R>> res = Vector.transientOf();
+                for (int i = 0; i < n; i++) {
+                    res = res.add(codec.read(in));
+                }
+                return res.persistent();
+            }
+        };
+    }
+
+    public static <R> Codec<FingerTree<R>> fingerTree(final Codec<R> codec) {
+        return new Codec<FingerTree<R>>() {
+            @Override
+            public void write(final Encoder out, final FingerTree<R> value) throws IOException {
+                writeSized(out, codec, value);
+            }
+
+            @Override
+            public FingerTree<R> read(final Decoder in) throws IOException {
+                final int n = in.readSize();
+                FingerTree<R> res = FingerTree.nil();
+                for (int i = 0; i < n; i++) {
+                    res = res.pushBack(codec.read(in));
+                }
+                return res;
+            }
+        };
+    }
+
+    /**
+     * Writes the set in ascending order, which lets the reader rebuild the
+     * balanced tree in linear time instead of inserting every value. Input
+     * which is not strictly ascending, like a set written with a different
+     * ordering, is sorted first.
+     *
+     * @param codec
+     * @return
+     */
+    public static <R extends Comparable<R>> Codec<Set<R>> set(final Codec<R> codec) {
+        return new Codec<Set<R>>() {
+            @Override
+            public void write(final Encoder out, final Set<R> value) throws IOException {
+                writeSized(out, codec, value);
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public Set<R> read(final Decoder in) throws IOException {
+                final Object[] values = readValues(in, codec);
+                for (int i = 1; i < values.length; i++) {
+                    if (((R) values[i - 1]).compareTo((R) values[i]) >= 0)
+                        return Set.Balanced.of(values, null);
+                }
+                return Set.Balanced.balanced(values, 0, values.length);
+            }
+        };
+    }
+
+    public static <R> Codec<HashSet<R>> hashSet(final Codec<R> codec) {
+        return new Codec<HashSet<R>>() {
+            @Override
+            public void write(final Encoder out, final HashSet<R> value) throws IOException {
+                writeSized(out, codec, value);
+            }
+
+            @Override
+            public HashSet<R> read(final Decoder in) throws IOException {
+                final int n = in.readSize();
+                Transient<R, HashSet<R>> res = HashSet.<R>nil().toTransient();
+                for (int i = 0; i < n; i++) {
+                    res = res.add(codec.read(in));
+                }
+                return res.persistent();
+            }
+        };
+    }
+
+    public static <P, Q> Codec<HashMap<P, Q>> hashMap(final Codec<P> keys, final Codec<Q> values) {
+        return new Codec<HashMap<P, Q>>() {
+            @Override
+            public void write(final Encoder out, final HashMap<P, Q> value) throws IOException {
+                out.writeVarInt(value.length());
+                for (final HashMap.Entry<P, Q> entry : value.iterable()) {
+                    keys.write(out, entry.key());
+                    values.write(out, entry.value());
+                }
+            }
+
+            @Override
+            public HashMap<P, Q> read(final Decoder in) throws IOException {
+                final int n = in.readSize();
+                HashMap.Builder<P, Q> res = HashMap.<P, Q>nil().toTransient();
+                for (int i = 0; i < n; i++) {
+                    final P key = keys.read(in);
+                    res = res.put(key, values.read(in));
+                }
+                return res.persistent();
+            }
+        };
+    }
+
+    public static Codec<IntArray> intArray() {
+        return new Codec<IntArray>() {
+            @Override
+            public void write(final Encoder out, final IntArray value) throws IOException {
+                out.writeVarInt(value.length());
+                for (final int element : value.iterable()) {
+                    out.writeVarLong(zigzag(element));
+                }
+            }
+
+            @Override
+            public IntArray read(final Decoder in) throws IOException {
+                final int n = in.readSize();
+                IntArray res = new IntArray.NonEmpty(new int[capacity(n)], 0);
+                for (int i = 0; i < n; i++) {
+                    res = res.append((int) unzigzag(in.readVarLong()));
+                }
+                return res;
+            }
+        };
+    }
+
+    public static Codec<LongArray> longArray() {
+        return new Codec<LongArray>() {
+            @Override
+            public void write(final Encoder out, final LongArray value) throws IOException {
+                out.writeVarInt(value.length());
+                for (final long element : value.iterable()) {
+                    out.writeVarLong(zigzag(element));
+                }
+            }
+
+            @Override
+            public LongArray read(final Decoder in) throws IOException {
+                final int n = in.readSize();
+                LongArray res = new LongArray.NonEmpty(new long[capacity(n)], 0);
+                for (int i = 0; i < n; i++) {
+                    res = res.append(unzigzag(in.readVarLong()));
+                }
+                return res;
+            }
+        };
+    }
+
+    public static Codec<DoubleArray> doubleArray() {
+        return new Codec<DoubleArray>() {
+            @Override
+            public void write(final Encoder out, final DoubleArray value) throws IOException {
+                out.writeVarInt(value.length());
+                for (final double element : value.iterable()) {
+                    out.writeDouble(element);
+                }
+            }
+
+            @Override
+            public DoubleArray read(final Decoder in) throws IOException {
+                final int n = in.readSize();
+                DoubleArray res = new DoubleArray.NonEmpty(new double[capacity(n)], 0);
+                for (int i = 0; i < n; i++) {
+                    res = res.append(in.readDouble());
+                }
+                return res;
+            }
+        };
+    }
+
+    static long zigzag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static <R> void writeSized(final Encoder out, final Codec<R> codec, final Collection<R> values) throws IOException {
+        out.writeVarInt(values.length());
+        writeAll(out, codec, values);
+    }
+
+    static <R> void writeAll(final Encoder out, final Codec<R> codec, final Collection<R> values) throws IOException {
+        for (final R value : values.iterable()) {
+            codec.write(out, value);
+        }
+    }
+
+    static <R> Object[] readValues(final Decoder in, final Codec<R> codec) throws IOException {
+        final int n = in.readSize();
+        Object[] values = new Object[capacity(n)];
+        for (int i = 0; i < n; i++) {
+            if (i == values.length) {
+                values = Arrays.copyOf(values, Math.min(n, i << 1));
+            }
+            values[i] = codec.read(in);
+        }
+        return values.length == n ? values : Arrays.copyOf(values, n);
+    }
+
+    /*
+     * Initial room for a count read from the input, which only grows as the
+     * elements actually arrive.
+     */
+    static int capacity(final int n) {
+        return Math.max(1, Math.min(n, Decoder.CHUNK));
+    }
+
+    /**
+     * Buffers the bytes for a channel and writes them out whenever the
+     * buffer fills up.
+     */
+    final static class Encoder {
+
+        static final int BUFFER = 1 << 13;
+
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer;
+        //bytes already handed to the channel.
+        private long written;
+
+        Encoder (final WritableByteChannel channel, final int capacity) {
+            this.channel = channel;
+            //large enough for any varint or fixed width value.
+            this.buffer = ByteBuffer.allocate(Math.max(capacity, 16));
+        }
+
+        public static Encoder of(final WritableByteChannel channel) {
+            return new Encoder(channel, BUFFER);
+        }
+
+        public Encoder writeByte(final int value) throws IOException {
+            ensure(1);
+            buffer.put((byte) value);
+            return this;
+        }
+
+        /**
+         * Unsigned LEB128, seven bits per byte starting with the lowest.
+         *
+         * @param value
+         * @return
+         * @throws IOException
+         */
+        public Encoder writeVarInt(final int value) throws IOException {
+            return writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        public Encoder writeVarLong(final long value) throws IOException {
+            ensure(10);
+            long rest = value;
+            while ((rest & ~0x7FL) != 0) {
+                buffer.put((byte) ((rest & 0x7F) | 0x80));
+                rest >>>= 7;
+            }
+            buffer.put((byte) rest);
+            return this;
+        }
+
+        public Encoder writeLong(final long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+            return this;
+        }
+
+        public Encoder writeDouble(final double value) throws IOException {
+            ensure(8);
+            buffer.putDouble(value);
+            return this;
+        }
+
+        public Encoder writeBytes(final byte[] bytes) throws IOException {
+            int from = 0;
+            while (from < bytes.length) {
+                if (!buffer.hasRemaining())
+                    drain();
+                final int n = Math.min(buffer.remaining(), bytes.length - from);
+                buffer.put(bytes, from, n);
+                from += n;
+            }
+            return this;
+        }
+
+        /**
+         * Writes out whatever is buffered.
+         *
+         * @throws IOException
+         */
+        public void flush() throws IOException {
+            drain();
+        }
+
+        /**
+         * Number of bytes written so far, buffered ones included.
+         *
+         * @return
+         */
+        public long position() {
+            return written + buffer.position();
+        }
+
+        private void ensure(final int n) throws IOException {
+            if (buffer.remaining() < n)
+                drain();
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Reads a channel through a buffer, refilling it as the values need
+     * more bytes.
+     */
+    final static class Decoder {
+
+        static final int BUFFER = 1 << 13;
+        //most that is allocated up front for a count read from the input.
+        static final int CHUNK = 1 << 16;
+
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer;
+
+        Decoder (final ReadableByteChannel channel, final int capacity) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocate(Math.max(capacity, 16));
+            this.buffer.flip();
+        }
+
+        /*
+         * Reads the remaining bytes of the buffer in place, without a channel
+         * behind it.
+         */
+        Decoder (final ByteBuffer buffer) {
+            this.channel = null;
+            this.buffer = buffer;
+        }
+
+        public static Decoder of(final ReadableByteChannel channel) {
+            return new Decoder(channel, BUFFER);
+        }
+
+        public int readByte() throws IOException {
+            require(1);
+            return buffer.get() & 0xFF;
+        }
+
+        public int readVarInt() throws IOException {
+            final long value = readVarLong();
+            if ((value >>> 32) != 0)
+                throw new StreamCorruptedException("varint does not fit an int");
+            return (int) value;
+        }
+
+        public long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return value;
+            }
+            throw new StreamCorruptedException("varint longer than 10 bytes");
+        }
+
+        /**
+         * Element or byte count, which has to be a non-negative int.
+         *
+         * @return
+         * @throws IOException
+         */
+        public int readSize() throws IOException {
+            final int size = readVarInt();
+            if (size < 0)
+                throw new StreamCorruptedException("negative size " + size);
+            return size;
+        }
+
+        public long readLong() throws IOException {
+            require(8);
+            return buffer.getLong();
+        }
+
+        public double readDouble() throws IOException {
+            require(8);
+            return buffer.getDouble();
+        }
+
+        public byte[] readBytes(final int n) throws IOException {
+            byte[] bytes = new byte[Math.min(n, CHUNK)];
+            int from = 0;
+            while (from < n) {
+                if (!buffer.hasRemaining())
+                    fill();
+                if (from == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, (int) Math.min(n, (long) from << 1));
+                }
+                final int chunk = Math.min(buffer.remaining(), bytes.length - from);
+                buffer.get(bytes, from, chunk);
+                from += chunk;
+            }
+            return bytes;
+        }
+
+        int readTag() throws IOException {
+            final int tag = readByte();
+            if (tag > 1)
+                throw new StreamCorruptedException("unknown tag " + tag);
+            return tag;
+        }
+
+        private void require(final int n) throws IOException {
+            while (buffer.remaining() < n) {
+                fill();
+            }
+        }
+
+        private void fill() throws IOException {
+            if (channel == null)
+                throw new EOFException();
+            buffer.compact();
+            try {
+                if (channel.read(buffer) < 0)
+                    throw new EOFException();
+            } finally {
+                buffer.flip();
+            }
+        }
+    }
+}
@@ -1,9 +1,21 @@
 package io.github.senthilganeshs.fj.ds;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public interface Collection<T> {
 
@@ -35,6 +47,20 @@ public interface Collection<T> {
     
     <R> R foldl (final R seed, final BiFunction<R,T,R> fn);
 
+    /**
+     * Travel the data-structure in the left to right order as long as the
+     * accumulated value satisfies the predicate. The predicate is checked
+     * before every element and the traversal stops at the first failure.
+     * 
+     * @param <R>
+     * @param seed
+     * @param fn
+     * @param pred
+     * @return
+     */
+    default <R> R foldWhile (final R seed, final BiFunction<R,T,R> fn, final Predicate<R> pred) {
+        return foldl(seed, (r, t) -> pred.test(r) ? fn.apply(r, t) : r);
+    }
 
     
     default <R> R foldr (final R seed, final BiFunction<T,R,R> fn) {
@@ -44,6 +70,25 @@ public interface Collection<T> {
         return res.apply(seed);
     }
 
+    /**
+     * Lazy view of this data-structure which fuses the operations applied
+     * to it into a single traversal.
+     * 
+     * @return
+     */
+    default Seq<T> seq() {
+        return Seq.of(this);
+    }
+
+    /**
+     * Generic traversal through liftA2, which visits every element. For
+     * {@link Maybe} and {@link Either} results prefer Maybe.traverse and
+     * Either.traverse, which stop at the first failure.
+     * 
+     * @param <R>
+     * @param fn
+     * @return
+     */
     default <R> Collection<Collection<R>> traverse (final Function<T, Collection<R>> fn) {            
         Collection<Collection<R>> seed = empty();
         Collection<Collection<R>> sseed = seed.build(empty());
@@ -57,9 +102,17 @@ public interface Collection<T> {
             (r, t) -> pred.test(t) ? r.build(t) : r);
     }
 
-    @SuppressWarnings("unchecked")
     default Maybe<T> find(final Predicate<T> pred) {
-        return (Maybe<T>) filter(pred).apply(Maybe.some(t -> t));
+        final Maybe<T> seed = Maybe.nothing();
+        return foldWhile(seed, (r, t) -> pred.test(t) ? Maybe.some(t) : r, Maybe::isNothing);
+    }
+
+    default boolean exists (final Predicate<T> pred) {
+        return foldWhile(false, (r, t) -> pred.test(t), r -> !r);
+    }
+
+    default boolean forAll (final Predicate<T> pred) {
+        return foldWhile(true, (r, t) -> pred.test(t), r -> r);
     }
 
     default <R, S> Collection<S> liftA2 (final Function<T, Function<R, S>> fn, final Collection<R> rs) {
@@ -112,19 +165,19 @@ public interface Collection<T> {
             });
     }    
 
+    /**
+     * Number of elements. The structures of this package keep their size and
+     * answer in O(1); only the lazy {@link Seq} stages have to fold.
+     * 
+     * @return
+     */
     default int length() {
         return foldl(0, (r, t) -> r + 1);
     }
     
-    @SuppressWarnings("unchecked")
     default Collection<T> drop (final int n) {
-        Object[] res = new Object[2];
-        res[0] = n;
-        res[1] = empty();
-        return (Collection<T>) foldl (res, 
-            (r, t) -> ((Integer) r[0] > 0) ? 
-            new Object[] {(Integer) r[0] - 1, r[1]} : 
-            new Object[] {(Integer) r[0], ((Collection<T>)r[1]).build(t)})[1];
+        final int from = Math.max(n, 0);
+        return slice(from, length() - from);
     }
 
     default Collection<T> reverse () {
@@ -132,20 +185,30 @@ public interface Collection<T> {
             (t, r) -> r.build(t));
     }
     
-    @SuppressWarnings("unchecked")
     default Collection<T> take (final int n) {
-        Object[] res = new Object[2];
-        res[0] = n;
-        res[1] = empty();
-        
-        return (Collection<T>)foldl(res,
-            (r, t) -> ((Integer) r[0] > 0) ?
-                new Object[] { (Integer) r[0] - 1, ((Collection<T>)r[1]).build(t)} :
-                new Object[] { (Integer) r[0], r[1]})[1];
+        if (n <= 0)
+            return empty();
+        final int[] remaining = { n };
+        final Collection<T> seed = empty();
+        return foldWhile(seed, 
+            (r, t) -> {
+                remaining[0] --;
+                return r.build(t);
+            }, 
+            r -> remaining[0] > 0);
     }
     
     default Collection<T> intersperse (final T sep) {
-        return drop(1).foldl(take(1), (r, t) -> r.build(sep).build(t));
+        final boolean[] first = { true };
+        final Collection<T> seed = empty();
+        return foldl(seed, 
+            (r, t) -> {
+                if (first[0]) {
+                    first[0] = false;
+                    return r.build(t);
+                }
+                return r.build(sep).build(t);
+            });
     }
 
     default Collection<Collection<T>> intercalate(final Collection<Collection<T>> rss) {
@@ -153,11 +216,127 @@ public interface Collection<T> {
     }
 
     default public Collection<T> slice(int start, int n) {
-        return drop(start).take(n);
+        final long from = Math.max(start, 0);
+        final long to = Math.min(from + n, length());
+        if (from >= to)
+            return empty();
+        final long[] index = { 0 };
+        final Collection<T> seed = empty();
+        return foldWhile(seed, 
+            (r, t) -> index[0]++ >= from ? r.build(t) : r, 
+            r -> index[0] < to);
     }
 
+    /**
+     * Same as {@link #length()}.
+     * 
+     * @return
+     */
     default public int count() {
-        return foldl(0, (count, t) -> count + 1);
+        return length();
+    }
+
+    /**
+     * Splits the data-structure into parts which, folded one after the other,
+     * visit the same elements in the same order. Structures which can not be
+     * split return a single part holding themselves.
+     * 
+     * @return
+     */
+    default Collection<Collection<T>> split() {
+        return List.<Collection<T>>nil().build(this);
+    }
+
+    /**
+     * Folds the parts returned by {@link #split()} in parallel on the common
+     * fork/join pool and combines the partial results in order. The seed is
+     * used once per part, so it must be an identity of the combiner.
+     * 
+     * @param <R>
+     * @param seed
+     * @param fn
+     * @param combiner
+     * @return
+     */
+    default <R> R parallelFold (final R seed, final BiFunction<R,T,R> fn, final BinaryOperator<R> combiner) {
+        return parallelFold(seed, fn, combiner, ForkJoinPool.commonPool(), ParallelFold.THRESHOLD);
+    }
+
+    /**
+     * Same as {@link #parallelFold(Object, BiFunction, BinaryOperator)} on the
+     * given pool. Parts with at most threshold elements are folded sequentially.
+     * 
+     * @param <R>
+     * @param seed
+     * @param fn
+     * @param combiner
+     * @param pool
+     * @param threshold
+     * @return
+     */
+    default <R> R parallelFold (
+        final R seed, 
+        final BiFunction<R,T,R> fn, 
+        final BinaryOperator<R> combiner, 
+        final ForkJoinPool pool, 
+        final int threshold) {
+        
+        return pool.invoke(new ParallelFold<>(this, seed, fn, combiner, threshold));
+    }
+
+    /**
+     * Iterator over the elements in the left to right order. Structures
+     * without a native iterator copy their elements first.
+     * 
+     * @return
+     */
+    default Iterator<T> iterator() {
+        return Collections.unmodifiableList(
+            foldl(new ArrayList<T>(), (r, t) -> {
+                r.add(t);
+                return r;
+            })).iterator();
+    }
+
+    /**
+     * Adapts this data-structure to the for-each loop. Collection can not
+     * extend {@link Iterable} itself as its forEach returns the collection.
+     * 
+     * @return
+     */
+    default Iterable<T> iterable() {
+        return this::iterator;
+    }
+
+    /**
+     * {@link Spliterator} characteristics which hold for this data-structure.
+     * 
+     * @return
+     */
+    default int characteristics() {
+        return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+    }
+
+    default Spliterator<T> spliterator() {
+        final java.util.List<Collection<T>> parts = new ArrayList<>();
+        parts.add(this);
+        return new Splitter<>(parts, characteristics());
+    }
+
+    default Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    default Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    default Maybe<T> reduce (final BinaryOperator<T> fn) {
+        final Maybe<T> seed = Maybe.nothing();
+        return parallelFold(seed, 
+            (r, t) -> Maybe.some(r.foldl(t, (__, prev) -> fn.apply(prev, t))),
+            (r1, r2) -> r2.foldl(r1, 
+                (__, next) -> Maybe.some(r1.foldl(next, (___, prev) -> fn.apply(prev, next)))));
     }
 
     public static <S, R extends Collection<S>> Collection<S> flatten(Collection<R> rs) {
@@ -168,8 +347,191 @@ public interface Collection<T> {
         return rs.traverse(id -> id);
     }
 
+    /**
+     * Collects a stream by building on the structure returned by empty.
+     * Parallel streams build one structure per part and concat them.
+     * 
+     * @param <T>
+     * @param <C>
+     * @param empty
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, C extends Collection<T>> Collector<T, ?, C> collector(final Supplier<C> empty) {
+        return Collector.<T, Object[], C>of(
+            () -> new Object[] { empty.get() },
+            (r, t) -> r[0] = ((Collection<T>) r[0]).build(t),
+            (r1, r2) -> {
+                r1[0] = ((Collection<T>) r1[0]).concat((Collection<T>) r2[0]);
+                return r1;
+            },
+            r -> (C) r[0]);
+    }
+
     public static <R extends Number> int sum(Collection<R> rs) {
-        return rs.foldl(0, (acc, r) -> acc + 1).intValue();
+        return rs.foldl(0, (acc, r) -> acc + r.intValue());
+    }
+
+    public static long sum(IntArray rs) {
+        return rs.sum();
+    }
+
+    public static long sum(LongArray rs) {
+        return rs.sum();
+    }
+
+    public static double sum(DoubleArray rs) {
+        return rs.sum();
     }
  
-}
\ No newline at end of file
+
+    final class ParallelFold<T, R> extends RecursiveTask<R> {
+
+        private static final long serialVersionUID = 1L;
+
+        static final int THRESHOLD = 1 << 13;
+
+        private final Collection<T> source;
+        private final R seed;
+        private final BiFunction<R, T, R> fn;
+        private final BinaryOperator<R> combiner;
+        private final int threshold;
+
+        ParallelFold (
+            final Collection<T> source, 
+            final R seed, 
+            final BiFunction<R, T, R> fn, 
+            final BinaryOperator<R> combiner, 
+            final int threshold) {
+            
+            this.source = source;
+            this.seed = seed;
+            this.fn = fn;
+            this.combiner = combiner;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected R compute() {
+            if (source.length() <= threshold)
+                return source.foldl(seed, fn);
+            final Collection<Collection<T>> parts = source.split();
+            if (parts.length() <= 1)
+                return source.foldl(seed, fn);
+
+            final java.util.List<ParallelFold<T, R>> tasks = parts.foldl(
+                new java.util.ArrayList<>(), 
+                (r, part) -> {
+                    r.add(new ParallelFold<>(part, seed, fn, combiner, threshold));
+                    return r;
+                });
+            for (int i = 1; i < tasks.size(); i++) {
+                tasks.get(i).fork();
+            }
+            R res = tasks.get(0).compute();
+            for (int i = 1; i < tasks.size(); i++) {
+                res = combiner.apply(res, tasks.get(i).join());
+            }
+            return res;
+        }
+    }
+
+    /**
+     * Spliterator over a sequence of parts. It splits by handing out the
+     * first half of its parts, and a single part by asking it to split().
+     */
+    final class Splitter<T> implements Spliterator<T> {
+
+        private final java.util.List<Collection<T>> parts;
+        private final int characteristics;
+        private final boolean sized;
+        private Iterator<T> current;
+        private long size;
+
+        /*
+         * Only SIZED parts are asked for their length, which is O(1) for
+         * them; any other part could only count its elements by a fold.
+         */
+        Splitter (final java.util.List<Collection<T>> parts, final int characteristics) {
+            this.parts = parts;
+            this.characteristics = characteristics;
+            this.sized = (characteristics & Spliterator.SIZED) != 0;
+            this.size = sized ? 0 : Long.MAX_VALUE;
+            if (sized) {
+                for (final Collection<T> part : parts) {
+                    this.size += part.length();
+                }
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super T> action) {
+            while (current == null || !current.hasNext()) {
+                if (parts.isEmpty())
+                    return false;
+                current = parts.remove(0).iterator();
+            }
+            if (sized) {
+                size --;
+            }
+            action.accept(current.next());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(final Consumer<? super T> action) {
+            if (current != null) {
+                current.forEachRemaining(action);
+            }
+            for (final Collection<T> part : parts) {
+                part.foldl(action, (r, t) -> {
+                    r.accept(t);
+                    return r;
+                });
+            }
+            parts.clear();
+            if (sized) {
+                size = 0;
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            if (current != null)
+                return null;
+            if (parts.size() == 1) {
+                final Collection<T> part = parts.remove(0);
+                part.split().foldl(parts, (r, p) -> {
+                    r.add(p);
+                    return r;
+                });
+            }
+            if (parts.size() < 2)
+                return null;
+            final java.util.List<Collection<T>> prefix = parts.subList(0, parts.size() / 2);
+            final Splitter<T> res = new Splitter<>(new ArrayList<>(prefix), characteristics);
+            prefix.clear();
+            if (sized) {
+                size -= res.size;
+            }
+            return res;
+        }
+
+        @Override
+        public long estimateSize() {
+            return size;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            if (hasCharacteristics(Spliterator.SORTED))
+                return null;
+            throw new IllegalStateException();
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package io.github.senthilganeshs.fj.ds;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+
+/**
+ * Immutable double-ended queue kept as two stacks: the front holds the first
+ * elements with the head on top and the rear holds the last elements with the
+ * last one on top. Both stacks stay within a constant factor of each other;
+ * when an operation breaks that balance the elements are redistributed in
+ * halves. Used as an ephemeral structure, where every operation applies to
+ * the latest version, this amortizes to O(1) per push, pop and peek at
+ * either end.
+ *
+ * The rebuild is strict, so the bound does not survive persistent use as
+ * such: every version at the balance limit would pay O(n) for each
+ * operation applied to it. A version therefore keeps the halves it was
+ * rebuilt into, and repeated operations on the same old version pay for the
+ * rebuild only once. Many distinct versions, each at the limit, still pay
+ * O(n) apiece.
+ *
+ * @param <T>
+ */
+public interface Deque<T> extends Collection<T> {
+
+    /**
+     * Appends to the back, so the deque folds in the insertion order like a queue.
+     */
+    @Override Deque<T> build(final T input);
+
+    Deque<T> pushFront(final T value);
+
+    Deque<T> pushBack(final T value);
+
+    /**
+     * Removes the first element. Popping an empty deque returns it unchanged.
+     *
+     * @return
+     */
+    Deque<T> popFront();
+
+    /**
+     * Removes the last element. Popping an empty deque returns it unchanged.
+     *
+     * @return
+     */
+    Deque<T> popBack();
+
+    Maybe<T> peekFront();
+
+    Maybe<T> peekBack();
+
+    static final Deque<Void> EMPTY = new Banker<>(Stack.nil(), 0, Stack.nil(), 0);
+
+    @SuppressWarnings("unchecked")
+    public static <R> Deque<R> nil() {
+        return (Deque<R>) EMPTY;
+    }
+
+    @SafeVarargs
+    public static <R> Deque<R> of(final R... values) {
+        if (values == null || values.length == 0)
+            return nil();
+        return Banker.balanced(Arrays.copyOf(values, values.length, Object[].class), values.length);
+    }
+
+    public static <R> Deque<R> of(final Collection<R> values) {
+        return values.foldl(nil(), (r, t) -> r.pushBack(t));
+    }
+
+    public static <R> Collector<R, ?, Deque<R>> collector() {
+        return Collection.collector(Deque::nil);
+    }
+
+    @Override
+    default int characteristics() {
+        return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.IMMUTABLE;
+    }
+
+    final static class Banker<T> implements Deque<T> {
+
+        //neither stack may hold more than BALANCE times the other plus one.
+        private static final int BALANCE = 3;
+
+        private final Stack<T> front;
+        private final int frontSize;
+        private final Stack<T> rear;
+        private final int rearSize;
+        private int hash;
+        //the same elements split in halves, built the first time an operation needs it.
+        private Banker<T> halves;
+
+        Banker (final Stack<T> front, final int frontSize, final Stack<T> rear, final int rearSize) {
+            this.front = front;
+            this.frontSize = frontSize;
+            this.rear = rear;
+            this.rearSize = rearSize;
+        }
+
+        @Override
+        public <R> Collection<R> empty() {
+            return nil();
+        }
+
+        @Override
+        public Deque<T> build(final T input) {
+            return pushBack(input);
+        }
+
+        @Override
+        public Deque<T> pushFront(final T value) {
+            if (!fits(frontSize + 1, rearSize) && !even())
+                return halves().pushFront(value);
+            return check(front.build(value), frontSize + 1, rear, rearSize);
+        }
+
+        @Override
+        public Deque<T> pushBack(final T value) {
+            if (!fits(frontSize, rearSize + 1) && !even())
+                return halves().pushBack(value);
+            return check(front, frontSize, rear.build(value), rearSize + 1);
+        }
+
+        @Override
+        public Deque<T> popFront() {
+            if (frontSize == 0) {
+                //balance leaves at most one element in the rear.
+                return rearSize == 0 ? this : nil();
+            }
+            if (!fits(frontSize - 1, rearSize) && !even())
+                return halves().popFront();
+            return check(front.pop(), frontSize - 1, rear, rearSize);
+        }
+
+        @Override
+        public Deque<T> popBack() {
+            if (rearSize == 0) {
+                return frontSize == 0 ? this : nil();
+            }
+            if (!fits(frontSize, rearSize - 1) && !even())
+                return halves().popBack();
+            return check(front, frontSize, rear.pop(), rearSize - 1);
+        }
+
+        @Override
+        public Maybe<T> peekFront() {
+            return frontSize == 0 ? rear.peek() : front.peek();
+        }
+
+        @Override
+        public Maybe<T> peekBack() {
+            return rearSize == 0 ? front.peek() : rear.peek();
+        }
+
+        @Override
+        public <R> R foldl(final R seed, final BiFunction<R, T, R> fn) {
+            return rear.foldr(front.foldl(seed, fn), (t, r) -> fn.apply(r, t));
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <R> R foldWhile(final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred) {
+            final R res = front.foldWhile(seed, fn, pred);
+            if (!pred.test(res) || rearSize == 0)
+                return res;
+            final Object[] back = back();
+            R acc = res;
+            for (int i = 0; i < back.length && pred.test(acc); i++) {
+                acc = fn.apply(acc, (T) back[i]);
+            }
+            return acc;
+        }
+
+        @Override
+        public <R> R foldr(final R seed, final BiFunction<T, R, R> fn) {
+            return front.foldr(rear.foldl(seed, (r, t) -> fn.apply(t, r)), fn);
+        }
+
+        @Override
+        public Collection<T> reverse() {
+            return new Banker<>(rear, rearSize, front, frontSize);
+        }
+
+        @Override
+        public int length() {
+            return frontSize + rearSize;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            final Iterator<T> first = front.iterator();
+            return new Iterator<T>() {
+                private Iterator<T> current = first;
+                private boolean rearStarted = false;
+
+                @Override
+                public boolean hasNext() {
+                    if (!current.hasNext() && !rearStarted) {
+                        rearStarted = true;
+                        current = Spliterators.iterator(Spliterators.spliterator(back(), characteristics()));
+                    }
+                    return current.hasNext();
+                }
+
+                @Override
+                public T next() {
+                    hasNext();
+                    return current.next();
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            return foldl(
+                new StringBuilder("["),
+                (r, t) -> r.length() == 1 ? r.append(t) : r.append(",").append(t))
+                .append("]")
+                .toString();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean equals(final Object other) {
+            if (other == null) return false;
+            if (other == this) return true;
+            if (other instanceof Banker) {
+                final Banker<T> dOther = (Banker<T>) other;
+                if (dOther.length() != length() || (hash != 0 && dOther.hash != 0 && dOther.hash != hash))
+                    return false;
+                final Iterator<T> mine = iterator();
+                final Iterator<T> theirs = dOther.iterator();
+                while (mine.hasNext()) {
+                    if (!Objects.equals(mine.next(), theirs.next()))
+                        return false;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        /*
+         * java.util.List#hashCode of the elements, computed on first use.
+         */
+        @Override
+        public int hashCode() {
+            int res = hash;
+            if (res == 0) {
+                res = foldl(1, (r, t) -> 31 * r + Objects.hashCode(t));
+                hash = res;
+            }
+            return res;
+        }
+
+        /*
+         * Rear elements in the left to right order.
+         */
+        private Object[] back() {
+            final Object[] values = new Object[rearSize];
+            rear.foldl(values.length, (i, t) -> {
+                values[i - 1] = t;
+                return i - 1;
+            });
+            return values;
+        }
+
+        /*
+         * Halves of this version, which an operation breaking the balance
+         * continues from; the halves are shared by every such operation.
+         * Racing threads may both build them, which is harmless.
+         */
+        private Banker<T> halves() {
+            Banker<T> res = halves;
+            if (res == null) {
+                res = balanced(values(front, rear, length()), length());
+                halves = res;
+            }
+            return res;
+        }
+
+        /*
+         * Already split in halves, so a rebuild would give the same stacks.
+         */
+        private boolean even() {
+            return Math.abs(frontSize - rearSize) <= 1;
+        }
+
+        private static boolean fits(final int frontSize, final int rearSize) {
+            return frontSize <= BALANCE * rearSize + 1 && rearSize <= BALANCE * frontSize + 1;
+        }
+
+        private static <T> Deque<T> check(
+            final Stack<T> front, final int frontSize, final Stack<T> rear, final int rearSize) {
+            if (!fits(frontSize, rearSize)) {
+                final int length = frontSize + rearSize;
+                return balanced(values(front, rear, length), length);
+            }
+            return new Banker<>(front, frontSize, rear, rearSize);
+        }
+
+        private static <T> Object[] values(final Stack<T> front, final Stack<T> rear, final int length) {
+            final Object[] values = new Object[length];
+            front.foldl(0, (i, t) -> {
+                values[i] = t;
+                return i + 1;
+            });
+            rear.foldl(values.length, (i, t) -> {
+                values[i - 1] = t;
+                return i - 1;
+            });
+            return values;
+        }
+
+        /*
+         * Splits the values in halves, the first half going to the front.
+         */
+        @SuppressWarnings("unchecked")
+        static <T> Banker<T> balanced(final Object[] values, final int length) {
+            final int mid = length >>> 1;
+            Stack<T> front = Stack.nil();
+            for (int i = mid - 1; i >= 0; i--) {
+                front = front.build((T) values[i]);
+            }
+            Stack<T> rear = Stack.nil();
+            for (int i = mid; i < length; i++) {
+                rear = rear.build((T) values[i]);
+            }
+            return new Banker<>(front, mid, rear, length - mid);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package io.github.senthilganeshs.fj.ds;
+
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Array of doubles kept in a double[] so that the primitive operations never box.
+ * The generic {@link Collection} operations are still available and box on demand.
+ */
+public interface DoubleArray extends Collection<Double> {
+
+    DoubleArray append(final double value);
+
+    Maybe<Double> at(final int index);
+
+    double foldDouble(final double seed, final DoubleBinaryOperator fn);
+
+    DoubleArray mapDouble(final DoubleUnaryOperator fn);
+
+    DoubleArray filterDouble(final DoublePredicate pred);
+
+    <R> Collection<R> mapToObj(final DoubleFunction<R> fn);
+
+    double[] toArray();
+
+    double sum();
+
+    Maybe<Double> min();
+
+    Maybe<Double> max();
+
+    public static DoubleArray of (final double...values) {
+        if (values == null || values.length == 0)
+            return new NonEmpty(new double[1], 0);
+        return new NonEmpty(values.clone(), values.length);
+    }
+
+    public static DoubleArray of (final Collection<Double> values) {
+        return mapToDouble(values, Double::doubleValue);
+    }
+
+    public static <T> DoubleArray mapToDouble (final Collection<T> values, final ToDoubleFunction<T> fn) {
+        return values.foldl((DoubleArray) new NonEmpty(new double[16], 0), (r, t) -> r.append(fn.applyAsDouble(t)));
+    }
+
+    final static class NonEmpty extends PrimitiveBuffer<double[]> implements DoubleArray {
+
+        NonEmpty (final double[] values, final int cursor) {
+            super(values, values.length, cursor);
+        }
+
+        @Override
+        double[] allocate(final int length) {
+            return new double[length];
+        }
+
+        @Override
+        public <R> Collection<R> empty() {
+            return new Array.NonEmpty<>(capacity(cursor));
+        }
+
+        @Override
+        public Collection<Double> build(final Double input) {
+            return append(input);
+        }
+
+        @Override
+        public DoubleArray append(final double value) {
+            final int index = next();
+            values[index] = value;
+            return this;
+        }
+
+        @Override
+        public Maybe<Double> at(final int index) {
+            return inRange(index) ? Maybe.some(values[index]) : Maybe.nothing();
+        }
+
+        @Override
+        public <R> R foldl(final R seed, final BiFunction<R, Double, R> fn) {
+            R res = seed;
+            for (int i = 0; i < cursor; i++) {
+                res = fn.apply(res, values[i]);
+            }
+            return res;
+        }
+
+        @Override
+        public <R> R foldWhile(final R seed, final BiFunction<R, Double, R> fn, final Predicate<R> pred) {
+            R res = seed;
+            for (int i = 0; i < cursor && pred.test(res); i++) {
+                res = fn.apply(res, values[i]);
+            }
+            return res;
+        }
+
+        @Override
+        public <R> R foldr(final R seed, final BiFunction<Double, R, R> fn) {
+            R res = seed;
+            for (int i = cursor - 1; i >= 0; i--) {
+                res = fn.apply(values[i], res);
+            }
+            return res;
+        }
+
+        @Override
+        public double foldDouble(final double seed, final DoubleBinaryOperator fn) {
+            double res = seed;
+            for (int i = 0; i < cursor; i++) {
+                res = fn.applyAsDouble(res, values[i]);
+            }
+            return res;
+        }
+
+        @Override
+        public DoubleArray mapDouble(final DoubleUnaryOperator fn) {
+            final double[] res = allocate(capacity(cursor));
+            for (int i = 0; i < cursor; i++) {
+                res[i] = fn.applyAsDouble(values[i]);
+            }
+            return new NonEmpty(res, cursor);
+        }
+
+        @Override
+        public DoubleArray filterDouble(final DoublePredicate pred) {
+            final double[] res = allocate(capacity(cursor));
+            int n = 0;
+            for (int i = 0; i < cursor; i++) {
+                if (pred.test(values[i])) {
+                    res[n ++] = values[i];
+                }
+            }
+            return new NonEmpty(res, n);
+        }
+
+        @Override
+        public <R> Collection<R> mapToObj(final DoubleFunction<R> fn) {
+            Collection<R> res = empty();
+            for (int i = 0; i < cursor; i++) {
+                res = res.build(fn.apply(values[i]));
+            }
+            return res;
+        }
+
+        @Override
+        public PrimitiveIterator.OfDouble iterator() {
+            return Spliterators.iterator(spliterator());
+        }
+
+        @Override
+        public Spliterator.OfDouble spliterator() {
+            return Spliterators.spliterator(values, 0, cursor, characteristics());
+        }
+
+        @Override
+        public double[] toArray() {
+            return copy(cursor);
+        }
+
+        @Override
+        public double sum() {
+            double res = 0;
+            for (int i = 0; i < cursor; i++) {
+                res += values[i];
+            }
+            return res;
+        }
+
+        @Override
+        public Maybe<Double> min() {
+            if (cursor == 0)
+                return Maybe.nothing();
+            double res = values[0];
+            for (int i = 1; i < cursor; i++) {
+                res = Math.min(res, values[i]);
+            }
+            return Maybe.some(res);
+        }
+
+        @Override
+        public Maybe<Double> max() {
+            if (cursor == 0)
+                return Maybe.nothing();
+            double res = values[0];
+            for (int i = 1; i < cursor; i++) {
+                res = Math.max(res, values[i]);
+            }
+            return Maybe.some(res);
+        }
+
+        @Override
+        void appendTo(final StringBuilder res, final int index) {
+            res.append(values[index]);
+        }
+
+        @Override
+        boolean sameAt(final double[] other, final int index) {
+            return Double.doubleToLongBits(other[index]) == Double.doubleToLongBits(values[index]);
+        }
+
+        @Override
+        int hashAt(final int index) {
+            return Double.hashCode(values[index]);
+        }
+    }
+}
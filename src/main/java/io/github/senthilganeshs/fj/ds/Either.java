@@ -1,5 +1,6 @@
 package io.github.senthilganeshs.fj.ds;
 
+import java.util.Objects;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
@@ -28,6 +29,54 @@ public interface Either<A, B> extends Collection<B> {
     }   
 
     
+    /**
+     * Applies fn to the values in order and builds the rights into the empty
+     * structure of the values in the same pass. Stops at the first left,
+     * which is then the result.
+     * 
+     * @param <T>
+     * @param <A>
+     * @param <R>
+     * @param values
+     * @param fn
+     * @return
+     */
+    public static <T, A, R> Either<A, Collection<R>> traverse (
+        final Collection<T> values, final Function<T, Either<A, R>> fn) {
+        final Collection<R> seed = values.empty();
+        return values.foldWhile(Either.<A, Collection<R>>right(seed),
+            (r, t) -> r.either(
+                Either::left,
+                rs -> fn.apply(t).either(Either::left, v -> right(rs.build(v)))),
+            Either::isRight);
+    }
+
+    public static <A, R> Either<A, Collection<R>> sequence (final Collection<Either<A, R>> values) {
+        return traverse(values, e -> e);
+    }
+
+    /**
+     * Like {@link #traverse(Collection, Function)} but goes through all the
+     * values and, if any of them fails, returns every left in order. The
+     * lefts go to a {@link List} whatever the input, so equal errors are all
+     * kept and need not be comparable.
+     * 
+     * @param <T>
+     * @param <A>
+     * @param <R>
+     * @param values
+     * @param fn
+     * @return
+     */
+    public static <T, A, R> Either<Collection<A>, Collection<R>> validate (
+        final Collection<T> values, final Function<T, Either<A, R>> fn) {
+        final Collection<R> seed = values.empty();
+        return values.foldl(Either.<Collection<A>, Collection<R>>right(seed),
+            (r, t) -> fn.apply(t).either(
+                a -> left(r.either(as -> as, __ -> List.<A>nil()).build(a)),
+                v -> r.either(__ -> r, rs -> right(rs.build(v)))));
+    }
+
     default B fromRight (final B def) {
         return either (a -> def, b -> b);
     }
@@ -61,6 +110,11 @@ public interface Either<A, B> extends Collection<B> {
             return seed;
         }
 
+        @Override
+        public <R> R foldr(final R seed, final BiFunction<B, R, R> fn) {
+            return seed;
+        }
+
         @Override
         public Either<A, B> build(final B value) {
             return new Right<>(value);
@@ -71,6 +125,11 @@ public interface Either<A, B> extends Collection<B> {
             return fa.apply(value);
         }
         
+        @Override
+        public int length() {
+            return 0;
+        }
+
         @Override
         public String toString() {
             return "Left " + value;
@@ -83,10 +142,15 @@ public interface Either<A, B> extends Collection<B> {
             if (other == this) return true;
             if (other instanceof Left) {
                 Left<A, B> lOther = ((Left<A, B>) other);
-                return lOther.value.equals(value);
+                return Objects.equals(lOther.value, value);
             }
             return false;
         }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(value) + 1;
+        }
     }
     
     final static class Right<A, B> implements Either <A, B> {
@@ -107,6 +171,11 @@ public interface Either<A, B> extends Collection<B> {
             return fn.apply(seed, value);
         }
 
+        @Override
+        public <R> R foldr(final R seed, final BiFunction<B, R, R> fn) {
+            return fn.apply(value, seed);
+        }
+
         @Override
         public Either<A, B> build(final B value) {
             //lose the old value.
@@ -118,6 +187,11 @@ public interface Either<A, B> extends Collection<B> {
             return fb.apply(value);
         }
         
+        @Override
+        public int length() {
+            return 1;
+        }
+
         @Override
         public String toString() {
             return "Right " + value;
@@ -129,9 +203,14 @@ public interface Either<A, B> extends Collection<B> {
             if (other == this) return true;
             if (other instanceof Right) {
                 Right<A, B> rOther = ((Right<A,B>) other);
-                return rOther.value.equals(value);
+                return Objects.equals(rOther.value, value);
             }
             return false;
         }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(value) + 2;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,800 @@
+package io.github.senthilganeshs.fj.ds;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+
+/**
+ * Immutable sequence stored as a 2-3 finger tree measured by size. Both ends
+ * are kept in digits of one to four elements and the middle is a finger tree
+ * of 2-3 nodes, so pushing and popping at either end is amortized O(1),
+ * concat is O(log min(n, m)) and at/take/drop/slice are O(log n).
+ *
+ * @param <T>
+ */
+public interface FingerTree<T> extends Collection<T> {
+
+    /**
+     * Appends to the back.
+     */
+    @Override FingerTree<T> build(final T input);
+
+    FingerTree<T> pushFront(final T value);
+
+    FingerTree<T> pushBack(final T value);
+
+    /**
+     * Removes the first element. Popping an empty tree returns it unchanged.
+     *
+     * @return
+     */
+    FingerTree<T> popFront();
+
+    /**
+     * Removes the last element. Popping an empty tree returns it unchanged.
+     *
+     * @return
+     */
+    FingerTree<T> popBack();
+
+    Maybe<T> peekFront();
+
+    Maybe<T> peekBack();
+
+    /**
+     * Element at the index or nothing if the index is out of range.
+     *
+     * @param index
+     * @return
+     */
+    Maybe<T> at(final int index);
+
+    /**
+     * Concatenates in O(log min(n, m)) when the other collection is a finger
+     * tree too; any other collection is appended element by element.
+     */
+    @Override FingerTree<T> concat(final Collection<T> other);
+
+    @Override FingerTree<T> take(final int n);
+
+    @Override FingerTree<T> drop(final int n);
+
+    @Override FingerTree<T> slice(final int start, final int n);
+
+    static final FingerTree<Void> EMPTY = new Empty<>();
+
+    @SuppressWarnings("unchecked")
+    public static <R> FingerTree<R> nil() {
+        return (FingerTree<R>) EMPTY;
+    }
+
+    @SafeVarargs
+    public static <R> FingerTree<R> of(final R... values) {
+        FingerTree<R> tree = nil();
+        if (values == null || values.length == 0)
+            return tree;
+        for (final R value : values) {
+            tree = tree.pushBack(value);
+        }
+        return tree;
+    }
+
+    public static <R> FingerTree<R> of(final Collection<R> values) {
+        return values.foldl(nil(), (r, t) -> r.pushBack(t));
+    }
+
+    public static <R> Collector<R, ?, FingerTree<R>> collector() {
+        return Collection.collector(FingerTree::nil);
+    }
+
+    @Override
+    default int characteristics() {
+        return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.IMMUTABLE;
+    }
+
+    /**
+     * Operations shared by the empty, single and deep trees. Below the top
+     * level the elements are {@link Node}s, and every fold and lookup
+     * descends through them down to the values.
+     */
+    abstract static class Tree<T> implements FingerTree<T> {
+
+        private int hash;
+
+        abstract int size();
+
+        abstract Tree<T> cons(final Object element);
+
+        abstract Tree<T> snoc(final Object element);
+
+        abstract Object head();
+
+        abstract Object last();
+
+        abstract Tree<T> tail();
+
+        abstract Tree<T> init();
+
+        /*
+         * Value at the index, which must be in range.
+         */
+        abstract Object lookup(final int index);
+
+        /*
+         * The trees left and right of the element holding the index, which
+         * must be in range, as { left, element, right }.
+         */
+        abstract Object[] splitTree(final int index);
+
+        @Override
+        public <R> Collection<R> empty() {
+            return nil();
+        }
+
+        @Override
+        public FingerTree<T> build(final T input) {
+            return snoc(input);
+        }
+
+        @Override
+        public FingerTree<T> pushFront(final T value) {
+            return cons(value);
+        }
+
+        @Override
+        public FingerTree<T> pushBack(final T value) {
+            return snoc(value);
+        }
+
+        @Override
+        public FingerTree<T> popFront() {
+            return tail();
+        }
+
+        @Override
+        public FingerTree<T> popBack() {
+            return init();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Maybe<T> peekFront() {
+            return size() == 0 ? Maybe.nothing() : Maybe.some((T) head());
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Maybe<T> peekBack() {
+            return size() == 0 ? Maybe.nothing() : Maybe.some((T) last());
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Maybe<T> at(final int index) {
+            if (index < 0 || index >= size())
+                return Maybe.nothing();
+            return Maybe.some((T) lookup(index));
+        }
+
+        @Override
+        public int length() {
+            return size();
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Walk<>(this);
+        }
+
+        @Override
+        public FingerTree<T> concat(final Collection<T> other) {
+            if (other instanceof Tree)
+                return concat(this, new Object[0], (Tree<T>) other);
+            return other.foldl((FingerTree<T>) this, (r, t) -> r.pushBack(t));
+        }
+
+        @Override
+        public FingerTree<T> take(final int n) {
+            return splitAt(n).left;
+        }
+
+        @Override
+        public FingerTree<T> drop(final int n) {
+            return splitAt(n).right;
+        }
+
+        @Override
+        public FingerTree<T> slice(final int start, final int n) {
+            if (n <= 0)
+                return nil();
+            return drop(Math.max(start, 0)).take(n);
+        }
+
+        @Override
+        public Collection<Collection<T>> split() {
+            if (size() <= 1)
+                return List.<Collection<T>>nil().build(this);
+            final Split<T> halves = splitAt(size() >>> 1);
+            return List.<Collection<T>>nil().build(halves.left).build(halves.right);
+        }
+
+        @Override
+        public String toString() {
+            return foldl(
+                new StringBuilder("["),
+                (r, t) -> r.length() == 1 ? r.append(t) : r.append(",").append(t))
+                .append("]")
+                .toString();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean equals(final Object other) {
+            if (other == null) return false;
+            if (other == this) return true;
+            if (other instanceof Tree) {
+                final Tree<T> tOther = (Tree<T>) other;
+                if (tOther.size() != size() || (hash != 0 && tOther.hash != 0 && tOther.hash != hash))
+                    return false;
+                final Iterator<T> mine = iterator();
+                final Iterator<T> theirs = tOther.iterator();
+                while (mine.hasNext()) {
+                    if (!Objects.equals(mine.next(), theirs.next()))
+                        return false;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        /*
+         * java.util.List#hashCode of the elements, computed on first use.
+         */
+        @Override
+        public int hashCode() {
+            int res = hash;
+            if (res == 0) {
+                res = foldl(1, (r, t) -> 31 * r + Objects.hashCode(t));
+                hash = res;
+            }
+            return res;
+        }
+
+        /*
+         * The first n elements and the rest.
+         */
+        @SuppressWarnings("unchecked")
+        private Split<T> splitAt(final int n) {
+            if (n <= 0)
+                return new Split<>((Tree<T>) nil(), this);
+            if (n >= size())
+                return new Split<>(this, (Tree<T>) nil());
+            final Object[] parts = splitTree(n);
+            return new Split<>((Tree<T>) parts[0], ((Tree<T>) parts[2]).cons(parts[1]));
+        }
+
+        /*
+         * Left to right walk with an explicit stack of pending elements. The
+         * digits of the spine are pushed up front, suffixes first, and a node
+         * is opened only when it reaches the top, so the stack stays within a
+         * few elements per level.
+         */
+        private static final class Walk<T> implements Iterator<T> {
+            private Object[] stack = new Object[16];
+            private int top;
+
+            Walk (final Tree<T> tree) {
+                push(tree);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return top > 0;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public T next() {
+                if (top == 0)
+                    throw new NoSuchElementException();
+                Object element = stack[-- top];
+                stack[top] = null;
+                while (element instanceof Node) {
+                    push(((Node) element).items);
+                    element = stack[-- top];
+                    stack[top] = null;
+                }
+                return (T) element;
+            }
+
+            private void push(final Tree<?> tree) {
+                if (tree instanceof Single) {
+                    push(new Object[] { ((Single<?>) tree).element });
+                } else if (tree instanceof Deep) {
+                    final Deep<?> deep = (Deep<?>) tree;
+                    push(deep.suffix);
+                    push(deep.middle);
+                    push(deep.prefix);
+                }
+            }
+
+            /*
+             * Pushed last to first, so that the first is popped first.
+             */
+            private void push(final Object[] elements) {
+                if (top + elements.length > stack.length) {
+                    stack = Arrays.copyOf(stack, Math.max(stack.length << 1, top + elements.length));
+                }
+                for (int i = elements.length - 1; i >= 0; i--) {
+                    stack[top ++] = elements[i];
+                }
+            }
+        }
+
+        private static final class Split<T> {
+            final Tree<T> left;
+            final Tree<T> right;
+
+            Split (final Tree<T> left, final Tree<T> right) {
+                this.left = left;
+                this.right = right;
+            }
+        }
+
+        static int size(final Object element) {
+            return element instanceof Node ? ((Node) element).size : 1;
+        }
+
+        static int size(final Object[] digit) {
+            int res = 0;
+            for (final Object element : digit) {
+                res += size(element);
+            }
+            return res;
+        }
+
+        /*
+         * Index within the digit of the element holding the position.
+         */
+        static int locate(final Object[] digit, final int position) {
+            int index = position;
+            for (int i = 0; i < digit.length; i++) {
+                final int size = size(digit[i]);
+                if (index < size)
+                    return i;
+                index -= size;
+            }
+            return digit.length - 1;
+        }
+
+        static Object lookup(final Object[] digit, final int position) {
+            Object[] elements = digit;
+            int index = position;
+            while (true) {
+                int i = 0;
+                while (index >= size(elements[i])) {
+                    index -= size(elements[i ++]);
+                }
+                if (!(elements[i] instanceof Node))
+                    return elements[i];
+                elements = ((Node) elements[i]).items;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> Tree<T> tree(final Object[] digit) {
+            if (digit.length == 0)
+                return (Tree<T>) nil();
+            if (digit.length == 1)
+                return new Single<>(digit[0]);
+            final int mid = digit.length >>> 1;
+            return new Deep<>(
+                Arrays.copyOfRange(digit, 0, mid),
+                (Tree<T>) nil(),
+                Arrays.copyOfRange(digit, mid, digit.length));
+        }
+
+        /*
+         * Deep tree whose prefix may have run out.
+         */
+        static <T> Tree<T> deepLeft(final Object[] prefix, final Tree<T> middle, final Object[] suffix) {
+            if (prefix.length > 0)
+                return new Deep<>(prefix, middle, suffix);
+            if (middle.size() == 0)
+                return tree(suffix);
+            return new Deep<>(((Node) middle.head()).items, middle.tail(), suffix);
+        }
+
+        /*
+         * Deep tree whose suffix may have run out.
+         */
+        static <T> Tree<T> deepRight(final Object[] prefix, final Tree<T> middle, final Object[] suffix) {
+            if (suffix.length > 0)
+                return new Deep<>(prefix, middle, suffix);
+            if (middle.size() == 0)
+                return tree(prefix);
+            return new Deep<>(prefix, middle.init(), ((Node) middle.last()).items);
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> Tree<T> concat(final Tree<T> left, final Object[] elements, final Tree<T> right) {
+            if (left instanceof Empty) {
+                Tree<T> res = right;
+                for (int i = elements.length - 1; i >= 0; i--) {
+                    res = res.cons(elements[i]);
+                }
+                return res;
+            }
+            if (right instanceof Empty) {
+                Tree<T> res = left;
+                for (final Object element : elements) {
+                    res = res.snoc(element);
+                }
+                return res;
+            }
+            if (left instanceof Single)
+                return concat((Tree<T>) nil(), elements, right).cons(left.head());
+            if (right instanceof Single)
+                return concat(left, elements, (Tree<T>) nil()).snoc(right.head());
+
+            final Deep<T> l = (Deep<T>) left;
+            final Deep<T> r = (Deep<T>) right;
+            final Object[] middle = new Object[l.suffix.length + elements.length + r.prefix.length];
+            System.arraycopy(l.suffix, 0, middle, 0, l.suffix.length);
+            System.arraycopy(elements, 0, middle, l.suffix.length, elements.length);
+            System.arraycopy(r.prefix, 0, middle, l.suffix.length + elements.length, r.prefix.length);
+            return new Deep<>(l.prefix, concat(l.middle, nodes(middle), r.middle), r.suffix);
+        }
+
+        /*
+         * Groups 2 to 12 elements into 2-3 nodes, preferring nodes of three.
+         */
+        static Object[] nodes(final Object[] elements) {
+            final int n = elements.length;
+            final Object[] res = new Object[(n + 2) / 3];
+            int i = 0;
+            int k = 0;
+            while (n - i > 4 || n - i == 3) {
+                res[k ++] = new Node(elements[i], elements[i + 1], elements[i + 2]);
+                i += 3;
+            }
+            while (i < n) {
+                res[k ++] = new Node(elements[i], elements[i + 1]);
+                i += 2;
+            }
+            return res;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <R, T> R foldl(final Object element, final R seed, final BiFunction<R, T, R> fn) {
+            if (!(element instanceof Node))
+                return fn.apply(seed, (T) element);
+            R res = seed;
+            for (final Object item : ((Node) element).items) {
+                res = foldl(item, res, fn);
+            }
+            return res;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <R, T> R foldWhile(final Object element, final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred) {
+            if (!(element instanceof Node))
+                return pred.test(seed) ? fn.apply(seed, (T) element) : seed;
+            R res = seed;
+            for (final Object item : ((Node) element).items) {
+                if (!pred.test(res))
+                    return res;
+                res = foldWhile(item, res, fn, pred);
+            }
+            return res;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <R, T> R foldr(final Object element, final R seed, final BiFunction<T, R, R> fn) {
+            if (!(element instanceof Node))
+                return fn.apply((T) element, seed);
+            final Object[] items = ((Node) element).items;
+            R res = seed;
+            for (int i = items.length - 1; i >= 0; i--) {
+                res = foldr(items[i], res, fn);
+            }
+            return res;
+        }
+    }
+
+    /**
+     * Two or three elements of the level below with their total size.
+     */
+    final static class Node {
+        private final int size;
+        private final Object[] items;
+
+        Node (final Object...items) {
+            this.items = items;
+            this.size = Tree.size(items);
+        }
+    }
+
+    final static class Empty<T> extends Tree<T> {
+
+        @Override
+        int size() {
+            return 0;
+        }
+
+        @Override
+        Tree<T> cons(final Object element) {
+            return new Single<>(element);
+        }
+
+        @Override
+        Tree<T> snoc(final Object element) {
+            return new Single<>(element);
+        }
+
+        @Override
+        Object head() {
+            return null;
+        }
+
+        @Override
+        Object last() {
+            return null;
+        }
+
+        @Override
+        Tree<T> tail() {
+            return this;
+        }
+
+        @Override
+        Tree<T> init() {
+            return this;
+        }
+
+        @Override
+        Object lookup(final int index) {
+            return null;
+        }
+
+        @Override
+        Object[] splitTree(final int index) {
+            return new Object[] { this, null, this };
+        }
+
+        @Override
+        public <R> R foldl(final R seed, final BiFunction<R, T, R> fn) {
+            return seed;
+        }
+
+        @Override
+        public <R> R foldr(final R seed, final BiFunction<T, R, R> fn) {
+            return seed;
+        }
+    }
+
+    final static class Single<T> extends Tree<T> {
+        private final Object element;
+
+        Single (final Object element) {
+            this.element = element;
+        }
+
+        @Override
+        int size() {
+            return size(element);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Tree<T> cons(final Object other) {
+            return new Deep<>(new Object[] { other }, (Tree<T>) nil(), new Object[] { element });
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Tree<T> snoc(final Object other) {
+            return new Deep<>(new Object[] { element }, (Tree<T>) nil(), new Object[] { other });
+        }
+
+        @Override
+        Object head() {
+            return element;
+        }
+
+        @Override
+        Object last() {
+            return element;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Tree<T> tail() {
+            return (Tree<T>) nil();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        Tree<T> init() {
+            return (Tree<T>) nil();
+        }
+
+        @Override
+        Object lookup(final int index) {
+            return lookup(new Object[] { element }, index);
+        }
+
+        @Override
+        Object[] splitTree(final int index) {
+            return new Object[] { nil(), element, nil() };
+        }
+
+        @Override
+        public <R> R foldl(final R seed, final BiFunction<R, T, R> fn) {
+            return foldl(element, seed, fn);
+        }
+
+        @Override
+        public <R> R foldWhile(final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred) {
+            return foldWhile(element, seed, fn, pred);
+        }
+
+        @Override
+        public <R> R foldr(final R seed, final BiFunction<T, R, R> fn) {
+            return foldr(element, seed, fn);
+        }
+    }
+
+    final static class Deep<T> extends Tree<T> {
+        private final int size;
+        private final Object[] prefix;
+        private final Tree<T> middle;
+        private final Object[] suffix;
+
+        Deep (final Object[] prefix, final Tree<T> middle, final Object[] suffix) {
+            this.prefix = prefix;
+            this.middle = middle;
+            this.suffix = suffix;
+            this.size = size(prefix) + middle.size() + size(suffix);
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        Tree<T> cons(final Object element) {
+            if (prefix.length == 4) {
+                return new Deep<>(
+                    new Object[] { element, prefix[0] },
+                    middle.cons(new Node(prefix[1], prefix[2], prefix[3])),
+                    suffix);
+            }
+            final Object[] res = new Object[prefix.length + 1];
+            res[0] = element;
+            System.arraycopy(prefix, 0, res, 1, prefix.length);
+            return new Deep<>(res, middle, suffix);
+        }
+
+        @Override
+        Tree<T> snoc(final Object element) {
+            if (suffix.length == 4) {
+                return new Deep<>(
+                    prefix,
+                    middle.snoc(new Node(suffix[0], suffix[1], suffix[2])),
+                    new Object[] { suffix[3], element });
+            }
+            final Object[] res = Arrays.copyOf(suffix, suffix.length + 1);
+            res[suffix.length] = element;
+            return new Deep<>(prefix, middle, res);
+        }
+
+        @Override
+        Object head() {
+            return prefix[0];
+        }
+
+        @Override
+        Object last() {
+            return suffix[suffix.length - 1];
+        }
+
+        @Override
+        Tree<T> tail() {
+            return deepLeft(Arrays.copyOfRange(prefix, 1, prefix.length), middle, suffix);
+        }
+
+        @Override
+        Tree<T> init() {
+            return deepRight(prefix, middle, Arrays.copyOf(suffix, suffix.length - 1));
+        }
+
+        @Override
+        Object lookup(final int index) {
+            final int prefixSize = size(prefix);
+            if (index < prefixSize)
+                return lookup(prefix, index);
+            if (index < prefixSize + middle.size())
+                return middle.lookup(index - prefixSize);
+            return lookup(suffix, index - prefixSize - middle.size());
+        }
+
+        @Override
+        Object[] splitTree(final int index) {
+            final int prefixSize = size(prefix);
+            if (index < prefixSize) {
+                final int k = locate(prefix, index);
+                return new Object[] {
+                    tree(Arrays.copyOfRange(prefix, 0, k)),
+                    prefix[k],
+                    deepLeft(Arrays.copyOfRange(prefix, k + 1, prefix.length), middle, suffix) };
+            }
+            final int middleSize = middle.size();
+            if (index < prefixSize + middleSize) {
+                final Object[] parts = middle.splitTree(index - prefixSize);
+                @SuppressWarnings("unchecked")
+                final Tree<T> left = (Tree<T>) parts[0];
+                @SuppressWarnings("unchecked")
+                final Tree<T> right = (Tree<T>) parts[2];
+                final Object[] items = ((Node) parts[1]).items;
+                final int k = locate(items, index - prefixSize - left.size());
+                return new Object[] {
+                    deepRight(prefix, left, Arrays.copyOfRange(items, 0, k)),
+                    items[k],
+                    deepLeft(Arrays.copyOfRange(items, k + 1, items.length), right, suffix) };
+            }
+            final int k = locate(suffix, index - prefixSize - middleSize);
+            return new Object[] {
+                deepRight(prefix, middle, Arrays.copyOfRange(suffix, 0, k)),
+                suffix[k],
+                tree(Arrays.copyOfRange(suffix, k + 1, suffix.length)) };
+        }
+
+        @Override
+        public <R> R foldl(final R seed, final BiFunction<R, T, R> fn) {
+            R res = seed;
+            for (final Object element : prefix) {
+                res = foldl(element, res, fn);
+            }
+            res = middle.foldl(res, fn);
+            for (final Object element : suffix) {
+                res = foldl(element, res, fn);
+            }
+            return res;
+        }
+
+        @Override
+        public <R> R foldWhile(final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred) {
+            R res = seed;
+            for (final Object element : prefix) {
+                res = foldWhile(element, res, fn, pred);
+            }
+            if (!pred.test(res))
+                return res;
+            res = middle.foldWhile(res, fn, pred);
+            for (final Object element : suffix) {
+                res = foldWhile(element, res, fn, pred);
+            }
+            return res;
+        }
+
+        @Override
+        public <R> R foldr(final R seed, final BiFunction<T, R, R> fn) {
+            R res = seed;
+            for (int i = suffix.length - 1; i >= 0; i--) {
+                res = foldr(suffix[i], res, fn);
+            }
+            res = middle.foldr(res, fn);
+            for (int i = prefix.length - 1; i >= 0; i--) {
+                res = foldr(prefix[i], res, fn);
+            }
+            return res;
+        }
+    }
+}
@@ -0,0 +1,635 @@
+package io.github.senthilganeshs.fj.ds;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+
+/**
+ * Immutable map stored as a hash array mapped trie. Every level consumes
+ * five bits of the key hash and keeps only the occupied slots, indexed by a
+ * 32-bit bitmap; keys whose hashes fully collide share a collision node.
+ * Updates copy the path to the changed slot and share everything else.
+ *
+ * @param <K>
+ * @param <V>
+ */
+public interface HashMap<K, V> extends Collection<HashMap.Entry<K, V>> {
+
+    @Override HashMap<K, V> build(final Entry<K, V> entry);
+
+    HashMap<K, V> put(final K key, final V value);
+
+    HashMap<K, V> remove(final K key);
+
+    Maybe<V> get(final K key);
+
+    boolean containsKey(final K key);
+
+    /**
+     * Entries accepted by the predicate, still as a map.
+     * 
+     * @param pred
+     * @return
+     */
+    @Override HashMap<K, V> filter(final Predicate<Entry<K, V>> pred);
+
+    static final HashMap<Void, Void> EMPTY = new Trie<>(null, 0);
+
+    @SuppressWarnings("unchecked")
+    public static <P, Q> HashMap<P, Q> nil() {
+        return (HashMap<P, Q>) EMPTY;
+    }
+
+    public static <P, Q> HashMap<P, Q> of(final java.util.Map<P, Q> values) {
+        final Builder<P, Q> builder = HashMap.<P, Q>nil().toTransient();
+        for (final java.util.Map.Entry<P, Q> entry : values.entrySet()) {
+            builder.put(entry.getKey(), entry.getValue());
+        }
+        return builder.persistent();
+    }
+
+    /**
+     * Builder updating in place the trie nodes it created or already copied.
+     * 
+     * @return
+     */
+    Builder<K, V> toTransient();
+
+    /**
+     * {@link Transient} for maps, adding entries by key and value.
+     *
+     * @param <K>
+     * @param <V>
+     */
+    public interface Builder<K, V> extends Transient<Entry<K, V>, HashMap<K, V>> {
+
+        @Override Builder<K, V> add(final Entry<K, V> entry);
+
+        @Override Builder<K, V> addAll(final Collection<Entry<K, V>> entries);
+
+        /**
+         * Adds the entry, replacing the value of an existing key.
+         * 
+         * @param key
+         * @param value
+         * @return
+         */
+        Builder<K, V> put(final K key, final V value);
+
+        boolean containsKey(final K key);
+    }
+
+    /**
+     * Collects a stream into a map; later values replace earlier ones for the same key.
+     * 
+     * @param key
+     * @param value
+     * @return
+     */
+    public static <T, P, Q> Collector<T, ?, HashMap<P, Q>> collector(
+        final Function<T, P> key, final Function<T, Q> value) {
+        return Collector.<T, Builder<P, Q>, HashMap<P, Q>>of(
+            () -> HashMap.<P, Q>nil().toTransient(),
+            (r, t) -> r.put(key.apply(t), value.apply(t)),
+            (r1, r2) -> r1.addAll(r2.persistent()),
+            Builder::persistent);
+    }
+
+    @Override
+    default int characteristics() {
+        return Spliterator.DISTINCT | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.IMMUTABLE;
+    }
+
+    public static <P, Q> Entry<P, Q> entry(final P key, final Q value) {
+        return new Entry<>(hash(key), key, value);
+    }
+
+    static int hash(final Object key) {
+        final int h = Objects.hashCode(key);
+        return h ^ (h >>> 16);
+    }
+
+    final static class Entry<K, V> {
+        private final int hash;
+        private final K key;
+        private final V value;
+
+        Entry (final int hash, final K key, final V value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+        public K key() {
+            return key;
+        }
+
+        public V value() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean equals(final Object other) {
+            if (other == null) return false;
+            if (other == this) return true;
+            if (other instanceof Entry) {
+                final Entry<K, V> eOther = (Entry<K, V>) other;
+                return Objects.equals(eOther.key, key) && Objects.equals(eOther.value, value);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+    }
+
+    final static class Trie<K, V> implements HashMap<K, V> {
+
+        private static final int BITS = 5;
+        private static final int MASK = (1 << BITS) - 1;
+
+        private final Node root;
+        private final int size;
+        private int hash;
+
+        Trie (final Node root, final int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        /*
+         * Mapped values need not be entries, nor distinct, so they go to an
+         * array in iteration order; filter keeps the map instead.
+         */
+        @Override
+        public <R> Collection<R> empty() {
+            return new Array.NonEmpty<>(Math.max(size, 1));
+        }
+
+        @Override
+        public HashMap<K, V> filter(final Predicate<Entry<K, V>> pred) {
+            final HashMap.Builder<K, V> res = HashMap.<K, V>nil().toTransient();
+            return foldl(res, (r, e) -> pred.test(e) ? r.add(e) : r).persistent();
+        }
+
+        @Override
+        public HashMap<K, V> build(final Entry<K, V> entry) {
+            return put(entry.key, entry.value);
+        }
+
+        @Override
+        public HashMap<K, V> put(final K key, final V value) {
+            final boolean[] added = { false };
+            final Entry<K, V> entry = new Entry<>(hash(key), key, value);
+            final Node newRoot = root == null ?
+                Bitmap.EMPTY.put(null, 0, entry, added) :
+                root.put(null, 0, entry, added);
+            if (newRoot == root)
+                return this;
+            return new Trie<>(newRoot, added[0] ? size + 1 : size);
+        }
+
+        @Override
+        public HashMap.Builder<K, V> toTransient() {
+            return new Batch<>(root, size);
+        }
+
+        @Override
+        public HashMap<K, V> remove(final K key) {
+            if (root == null)
+                return this;
+            final Node newRoot = root.remove(0, hash(key), key);
+            if (newRoot == root)
+                return this;
+            return new Trie<>(newRoot, size - 1);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Maybe<V> get(final K key) {
+            final Entry<K, V> entry = root == null ? null : (Entry<K, V>) root.get(0, hash(key), key);
+            return entry == null ? Maybe.nothing() : Maybe.some(entry.value);
+        }
+
+        @Override
+        public boolean containsKey(final K key) {
+            return root != null && root.get(0, hash(key), key) != null;
+        }
+
+        @Override
+        public <R> R foldl(final R seed, final BiFunction<R, Entry<K, V>, R> fn) {
+            return root == null ? seed : root.fold(seed, fn, r -> true);
+        }
+
+        @Override
+        public <R> R foldWhile(final R seed, final BiFunction<R, Entry<K, V>, R> fn, final Predicate<R> pred) {
+            return root == null ? seed : root.fold(seed, fn, pred);
+        }
+
+        @Override
+        public int length() {
+            return size;
+        }
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new Walk<>(root);
+        }
+
+        @Override
+        public Spliterator<Entry<K, V>> spliterator() {
+            return Spliterators.spliterator(iterator(), size, characteristics());
+        }
+
+        @Override
+        public String toString() {
+            return foldl(
+                new StringBuilder("{"),
+                (r, e) -> r.length() == 1 ? r.append(e) : r.append(",").append(e))
+                .append("}")
+                .toString();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean equals(final Object other) {
+            if (other == null) return false;
+            if (other == this) return true;
+            if (other instanceof Trie) {
+                final Trie<K, V> mOther = (Trie<K, V>) other;
+                if (mOther.size != size || (hash != 0 && mOther.hash != 0 && mOther.hash != hash))
+                    return false;
+                return forAll(e -> mOther.get(e.key).foldl(false, (r, v) -> Objects.equals(v, e.value)));
+            }
+            return false;
+        }
+
+        /*
+         * Sum of the entry hashes, as in java.util.Map#hashCode, computed on first use.
+         */
+        @Override
+        public int hashCode() {
+            int res = hash;
+            if (res == 0) {
+                res = foldl(0, (r, e) -> r + e.hashCode());
+                hash = res;
+            }
+            return res;
+        }
+
+        private interface Node {
+
+            /*
+             * Nodes owned by a non-null edit token are updated in place.
+             */
+            Node put(final Object edit, final int shift, final Entry<?, ?> entry, final boolean[] added);
+
+            /*
+             * Returns null once the last entry of the node is gone.
+             */
+            Node remove(final int shift, final int hash, final Object key);
+
+            Entry<?, ?> get(final int shift, final int hash, final Object key);
+
+            <R, E> R fold(final R seed, final BiFunction<R, E, R> fn, final Predicate<R> pred);
+
+            /*
+             * Entries and child nodes in iteration order.
+             */
+            Object[] slots();
+        }
+
+        static final class Batch<K, V> implements HashMap.Builder<K, V> {
+            private Object edit = new Object();
+            private Node root;
+            private int size;
+
+            Batch (final Node root, final int size) {
+                this.root = root;
+                this.size = size;
+            }
+
+            @Override
+            public Batch<K, V> add(final Entry<K, V> entry) {
+                return put(entry.key, entry.value);
+            }
+
+            @Override
+            public Batch<K, V> addAll(final Collection<Entry<K, V>> entries) {
+                return entries.foldl(this, (r, e) -> r.put(e.key, e.value));
+            }
+
+            @Override
+            public Batch<K, V> put(final K key, final V value) {
+                if (edit == null)
+                    throw new IllegalStateException("builder used after persistent()");
+                final boolean[] added = { false };
+                final Entry<K, V> entry = new Entry<>(hash(key), key, value);
+                root = (root == null ? Bitmap.EMPTY : root).put(edit, 0, entry, added);
+                if (added[0]) {
+                    size ++;
+                }
+                return this;
+            }
+
+            @Override
+            public boolean containsKey(final K key) {
+                return root != null && root.get(0, hash(key), key) != null;
+            }
+
+            @Override
+            public HashMap<K, V> persistent() {
+                if (edit == null)
+                    throw new IllegalStateException("builder used after persistent()");
+                edit = null;
+                return root == null ? nil() : new Trie<>(root, size);
+            }
+        }
+
+        /*
+         * Depth first walk with an explicit stack of slot arrays; the trie
+         * is at most seven levels deep plus a collision node.
+         */
+        private static final class Walk<K, V> implements Iterator<Entry<K, V>> {
+
+            private final Object[][] slots = new Object[9][];
+            private final int[] index = new int[9];
+            private int depth;
+            private Entry<K, V> next;
+
+            Walk (final Node root) {
+                if (root == null) {
+                    depth = -1;
+                } else {
+                    slots[0] = root.slots();
+                    advance();
+                }
+            }
+
+            @SuppressWarnings("unchecked")
+            private void advance() {
+                next = null;
+                while (depth >= 0) {
+                    if (index[depth] == slots[depth].length) {
+                        depth --;
+                        continue;
+                    }
+                    final Object slot = slots[depth][index[depth] ++];
+                    if (slot instanceof Node) {
+                        depth ++;
+                        slots[depth] = ((Node) slot).slots();
+                        index[depth] = 0;
+                    } else {
+                        next = (Entry<K, V>) slot;
+                        return;
+                    }
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Entry<K, V> next() {
+                if (next == null)
+                    throw new NoSuchElementException();
+                final Entry<K, V> res = next;
+                advance();
+                return res;
+            }
+        }
+
+        /*
+         * Slots hold either an Entry or a child Node, compacted by the bitmap.
+         */
+        private static final class Bitmap implements Node {
+
+            private static final Bitmap EMPTY = new Bitmap(0, new Object[0]);
+
+            /*
+             * Only a Builder owning the edit token writes to these after
+             * construction. The trie reaches its root through a final field,
+             * which publishes the writes of the batch along with it.
+             */
+            private int bitmap;
+            private Object[] slots;
+            private final Object edit;
+
+            Bitmap (final int bitmap, final Object[] slots) {
+                this(bitmap, slots, null);
+            }
+
+            Bitmap (final int bitmap, final Object[] slots, final Object edit) {
+                this.bitmap = bitmap;
+                this.slots = slots;
+                this.edit = edit;
+            }
+
+            @Override
+            public Node put(final Object edit, final int shift, final Entry<?, ?> entry, final boolean[] added) {
+                final int bit = 1 << ((entry.hash >>> shift) & MASK);
+                final int index = Integer.bitCount(bitmap & (bit - 1));
+                if ((bitmap & bit) == 0) {
+                    added[0] = true;
+                    final Object[] res = new Object[slots.length + 1];
+                    System.arraycopy(slots, 0, res, 0, index);
+                    res[index] = entry;
+                    System.arraycopy(slots, index, res, index + 1, slots.length - index);
+                    if (owned(edit)) {
+                        this.bitmap |= bit;
+                        this.slots = res;
+                        return this;
+                    }
+                    return new Bitmap(bitmap | bit, res, edit);
+                }
+                final Object slot = slots[index];
+                if (slot instanceof Node) {
+                    final Node child = ((Node) slot).put(edit, shift + BITS, entry, added);
+                    return child == slot ? this : with(edit, index, child);
+                }
+                final Entry<?, ?> existing = (Entry<?, ?>) slot;
+                if (Objects.equals(existing.key, entry.key)) {
+                    return existing.value == entry.value ? this : with(edit, index, entry);
+                }
+                added[0] = true;
+                return with(edit, index, node(edit, shift + BITS, existing, entry));
+            }
+
+            private boolean owned(final Object edit) {
+                return edit != null && this.edit == edit;
+            }
+
+            @Override
+            public Node remove(final int shift, final int hash, final Object key) {
+                final int bit = 1 << ((hash >>> shift) & MASK);
+                if ((bitmap & bit) == 0)
+                    return this;
+                final int index = Integer.bitCount(bitmap & (bit - 1));
+                final Object slot = slots[index];
+                if (slot instanceof Node) {
+                    final Node child = ((Node) slot).remove(shift + BITS, hash, key);
+                    if (child == slot)
+                        return this;
+                    if (child != null)
+                        return with(index, child);
+                } else if (!Objects.equals(((Entry<?, ?>) slot).key, key)) {
+                    return this;
+                }
+                if (bitmap == bit)
+                    return null;
+                final Object[] res = new Object[slots.length - 1];
+                System.arraycopy(slots, 0, res, 0, index);
+                System.arraycopy(slots, index + 1, res, index, slots.length - index - 1);
+                return new Bitmap(bitmap ^ bit, res);
+            }
+
+            @Override
+            public Entry<?, ?> get(final int shift, final int hash, final Object key) {
+                final int bit = 1 << ((hash >>> shift) & MASK);
+                if ((bitmap & bit) == 0)
+                    return null;
+                final Object slot = slots[Integer.bitCount(bitmap & (bit - 1))];
+                if (slot instanceof Node)
+                    return ((Node) slot).get(shift + BITS, hash, key);
+                final Entry<?, ?> entry = (Entry<?, ?>) slot;
+                return Objects.equals(entry.key, key) ? entry : null;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public <R, E> R fold(final R seed, final BiFunction<R, E, R> fn, final Predicate<R> pred) {
+                R res = seed;
+                for (final Object slot : slots) {
+                    if (!pred.test(res))
+                        return res;
+                    res = slot instanceof Node ?
+                        ((Node) slot).fold(res, fn, pred) :
+                        fn.apply(res, (E) slot);
+                }
+                return res;
+            }
+
+            @Override
+            public Object[] slots() {
+                return slots;
+            }
+
+            private Bitmap with(final int index, final Object slot) {
+                return with(null, index, slot);
+            }
+
+            private Bitmap with(final Object edit, final int index, final Object slot) {
+                if (owned(edit)) {
+                    slots[index] = slot;
+                    return this;
+                }
+                final Object[] res = slots.clone();
+                res[index] = slot;
+                return new Bitmap(bitmap, res, edit);
+            }
+
+            private static Node node(final Object edit, final int shift, final Entry<?, ?> first, final Entry<?, ?> second) {
+                if (first.hash == second.hash)
+                    return new Collision(first.hash, new Entry<?, ?>[] { first, second });
+                final boolean[] added = { false };
+                return EMPTY.put(edit, shift, first, added).put(edit, shift, second, added);
+            }
+        }
+
+        /*
+         * Entries whose hashes are identical in all 32 bits.
+         */
+        private static final class Collision implements Node {
+
+            private final int hash;
+            private final Entry<?, ?>[] entries;
+
+            Collision (final int hash, final Entry<?, ?>[] entries) {
+                this.hash = hash;
+                this.entries = entries;
+            }
+
+            @Override
+            public Node put(final Object edit, final int shift, final Entry<?, ?> entry, final boolean[] added) {
+                if (entry.hash != hash) {
+                    //nest this node one level down next to the new entry.
+                    final Bitmap parent = new Bitmap(1 << ((hash >>> shift) & MASK), new Object[] { this }, edit);
+                    return parent.put(edit, shift, entry, added);
+                }
+                final int index = indexOf(entry.key);
+                if (index >= 0) {
+                    if (entries[index].value == entry.value)
+                        return this;
+                    final Entry<?, ?>[] res = entries.clone();
+                    res[index] = entry;
+                    return new Collision(hash, res);
+                }
+                added[0] = true;
+                final Entry<?, ?>[] res = Arrays.copyOf(entries, entries.length + 1);
+                res[entries.length] = entry;
+                return new Collision(hash, res);
+            }
+
+            @Override
+            public Node remove(final int shift, final int hash, final Object key) {
+                final int index = hash == this.hash ? indexOf(key) : -1;
+                if (index < 0)
+                    return this;
+                if (entries.length == 1)
+                    return null;
+                final Entry<?, ?>[] res = new Entry<?, ?>[entries.length - 1];
+                System.arraycopy(entries, 0, res, 0, index);
+                System.arraycopy(entries, index + 1, res, index, entries.length - index - 1);
+                return new Collision(hash, res);
+            }
+
+            @Override
+            public Entry<?, ?> get(final int shift, final int hash, final Object key) {
+                final int index = hash == this.hash ? indexOf(key) : -1;
+                return index < 0 ? null : entries[index];
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public <R, E> R fold(final R seed, final BiFunction<R, E, R> fn, final Predicate<R> pred) {
+                R res = seed;
+                for (final Entry<?, ?> entry : entries) {
+                    if (!pred.test(res))
+                        return res;
+                    res = fn.apply(res, (E) entry);
+                }
+                return res;
+            }
+
+            @Override
+            public Object[] slots() {
+                return entries;
+            }
+
+            private int indexOf(final Object key) {
+                for (int i = 0; i < entries.length; i++) {
+                    if (Objects.equals(entries[i].key, key))
+                        return i;
+                }
+                return -1;
+            }
+        }
+    }
+}
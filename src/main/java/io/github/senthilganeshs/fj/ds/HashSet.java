@@ -0,0 +1,203 @@
+package io.github.senthilganeshs.fj.ds;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+
+/**
+ * Immutable set of values compared by equals/hashCode, stored as the keys of
+ * a {@link HashMap}. Unlike {@link Set} it does not need the values to be
+ * {@link Comparable}.
+ *
+ * @param <T>
+ */
+public interface HashSet<T> extends Collection<T> {
+
+    @Override HashSet<T> build(final T value);
+
+    HashSet<T> remove(final T value);
+
+    boolean contains(final T value);
+
+    static final HashSet<Void> EMPTY = new Trie<>(HashMap.nil());
+
+    @SuppressWarnings("unchecked")
+    public static <R> HashSet<R> nil() {
+        return (HashSet<R>) EMPTY;
+    }
+
+    @SafeVarargs
+    public static <R> HashSet<R> of(final R... values) {
+        if (values == null || values.length == 0)
+            return nil();
+        final Transient<R, HashSet<R>> builder = HashSet.<R>nil().toTransient();
+        for (final R value : values) {
+            builder.add(value);
+        }
+        return builder.persistent();
+    }
+
+    public static <R> HashSet<R> of(final Collection<R> values) {
+        return HashSet.<R>nil().toTransient().addAll(values).persistent();
+    }
+
+    public static <R> HashSet<R> of(final java.util.Collection<R> values) {
+        return HashSet.<R>nil().toTransient().addAll(values).persistent();
+    }
+
+    public static <R> Collector<R, ?, HashSet<R>> collector() {
+        return Collector.<R, Transient<R, HashSet<R>>, HashSet<R>>of(
+            () -> HashSet.<R>nil().toTransient(),
+            Transient::add,
+            (r1, r2) -> r1.addAll(r2.persistent()),
+            Transient::persistent);
+    }
+
+    /**
+     * Builder updating in place the trie nodes it created or already copied.
+     * 
+     * @return
+     */
+    Transient<T, HashSet<T>> toTransient();
+
+    @Override
+    default int characteristics() {
+        return Spliterator.DISTINCT | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.IMMUTABLE;
+    }
+
+    final static class Trie<T> implements HashSet<T> {
+
+        private final HashMap<T, T> map;
+        private int hash;
+
+        Trie (final HashMap<T, T> map) {
+            this.map = map;
+        }
+
+        @Override
+        public <R> Collection<R> empty() {
+            return nil();
+        }
+
+        @Override
+        public HashSet<T> build(final T value) {
+            final HashMap<T, T> res = map.containsKey(value) ? map : map.put(value, value);
+            return res == map ? this : new Trie<>(res);
+        }
+
+        @Override
+        public Transient<T, HashSet<T>> toTransient() {
+            return new Builder<>(map.toTransient());
+        }
+
+        @Override
+        public HashSet<T> remove(final T value) {
+            final HashMap<T, T> res = map.remove(value);
+            return res == map ? this : new Trie<>(res);
+        }
+
+        @Override
+        public boolean contains(final T value) {
+            return map.containsKey(value);
+        }
+
+        @Override
+        public <R> R foldl(final R seed, final BiFunction<R, T, R> fn) {
+            return map.foldl(seed, (r, e) -> fn.apply(r, e.key()));
+        }
+
+        @Override
+        public <R> R foldWhile(final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred) {
+            return map.foldWhile(seed, (r, e) -> fn.apply(r, e.key()), pred);
+        }
+
+        @Override
+        public int length() {
+            return map.length();
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            final Iterator<HashMap.Entry<T, T>> entries = map.iterator();
+            return new Iterator<T>() {
+                @Override
+                public boolean hasNext() {
+                    return entries.hasNext();
+                }
+
+                @Override
+                public T next() {
+                    return entries.next().key();
+                }
+            };
+        }
+
+        @Override
+        public Spliterator<T> spliterator() {
+            return Spliterators.spliterator(iterator(), length(), characteristics());
+        }
+
+        @Override
+        public String toString() {
+            return foldl(
+                new StringBuilder("{"),
+                (r, t) -> r.length() == 1 ? r.append(t) : r.append(",").append(t))
+                .append("}")
+                .toString();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean equals(final Object other) {
+            if (other == null) return false;
+            if (other == this) return true;
+            if (other instanceof Trie) {
+                final Trie<T> sOther = (Trie<T>) other;
+                if (sOther.length() != length() || (hash != 0 && sOther.hash != 0 && sOther.hash != hash))
+                    return false;
+                return forAll(sOther::contains);
+            }
+            return false;
+        }
+
+        /*
+         * Sum of the value hashes, as in java.util.Set#hashCode, computed on first use.
+         */
+        @Override
+        public int hashCode() {
+            int res = hash;
+            if (res == 0) {
+                res = foldl(0, (r, t) -> r + Objects.hashCode(t));
+                hash = res;
+            }
+            return res;
+        }
+    }
+
+    final static class Builder<T> implements Transient<T, HashSet<T>> {
+        private final HashMap.Builder<T, T> map;
+
+        Builder (final HashMap.Builder<T, T> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Builder<T> add(final T value) {
+            //keeps the first of equal values, like build.
+            if (!map.containsKey(value)) {
+                map.put(value, value);
+            }
+            return this;
+        }
+
+        @Override
+        public HashSet<T> persistent() {
+            final HashMap<T, T> res = map.persistent();
+            return res.length() == 0 ? nil() : new Trie<>(res);
+        }
+    }
+}
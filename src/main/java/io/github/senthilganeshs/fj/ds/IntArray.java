@@ -0,0 +1,219 @@
+package io.github.senthilganeshs.fj.ds;
+
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Array of ints kept in an int[] so that the primitive operations never box.
+ * The generic {@link Collection} operations are still available and box on demand.
+ */
+public interface IntArray extends Collection<Integer> {
+
+    IntArray append(final int value);
+
+    Maybe<Integer> at(final int index);
+
+    int foldInt(final int seed, final IntBinaryOperator fn);
+
+    IntArray mapInt(final IntUnaryOperator fn);
+
+    IntArray filterInt(final IntPredicate pred);
+
+    <R> Collection<R> mapToObj(final IntFunction<R> fn);
+
+    int[] toArray();
+
+    /**
+     * Sum of the values, in a long so that large arrays do not wrap around.
+     *
+     * @return
+     */
+    long sum();
+
+    Maybe<Integer> min();
+
+    Maybe<Integer> max();
+
+    public static IntArray of (final int...values) {
+        if (values == null || values.length == 0)
+            return new NonEmpty(new int[1], 0);
+        return new NonEmpty(values.clone(), values.length);
+    }
+
+    public static IntArray of (final Collection<Integer> values) {
+        return mapToInt(values, Integer::intValue);
+    }
+
+    public static <T> IntArray mapToInt (final Collection<T> values, final ToIntFunction<T> fn) {
+        return values.foldl((IntArray) new NonEmpty(new int[16], 0), (r, t) -> r.append(fn.applyAsInt(t)));
+    }
+
+    final static class NonEmpty extends PrimitiveBuffer<int[]> implements IntArray {
+
+        NonEmpty (final int[] values, final int cursor) {
+            super(values, values.length, cursor);
+        }
+
+        @Override
+        int[] allocate(final int length) {
+            return new int[length];
+        }
+
+        @Override
+        public <R> Collection<R> empty() {
+            return new Array.NonEmpty<>(capacity(cursor));
+        }
+
+        @Override
+        public Collection<Integer> build(final Integer input) {
+            return append(input);
+        }
+
+        @Override
+        public IntArray append(final int value) {
+            final int index = next();
+            values[index] = value;
+            return this;
+        }
+
+        @Override
+        public Maybe<Integer> at(final int index) {
+            return inRange(index) ? Maybe.some(values[index]) : Maybe.nothing();
+        }
+
+        @Override
+        public <R> R foldl(final R seed, final BiFunction<R, Integer, R> fn) {
+            R res = seed;
+            for (int i = 0; i < cursor; i++) {
+                res = fn.apply(res, values[i]);
+            }
+            return res;
+        }
+
+        @Override
+        public <R> R foldWhile(final R seed, final BiFunction<R, Integer, R> fn, final Predicate<R> pred) {
+            R res = seed;
+            for (int i = 0; i < cursor && pred.test(res); i++) {
+                res = fn.apply(res, values[i]);
+            }
+            return res;
+        }
+
+        @Override
+        public <R> R foldr(final R seed, final BiFunction<Integer, R, R> fn) {
+            R res = seed;
+            for (int i = cursor - 1; i >= 0; i--) {
+                res = fn.apply(values[i], res);
+            }
+            return res;
+        }
+
+        @Override
+        public int foldInt(final int seed, final IntBinaryOperator fn) {
+            int res = seed;
+            for (int i = 0; i < cursor; i++) {
+                res = fn.applyAsInt(res, values[i]);
+            }
+            return res;
+        }
+
+        @Override
+        public IntArray mapInt(final IntUnaryOperator fn) {
+            final int[] res = allocate(capacity(cursor));
+            for (int i = 0; i < cursor; i++) {
+                res[i] = fn.applyAsInt(values[i]);
+            }
+            return new NonEmpty(res, cursor);
+        }
+
+        @Override
+        public IntArray filterInt(final IntPredicate pred) {
+            final int[] res = allocate(capacity(cursor));
+            int n = 0;
+            for (int i = 0; i < cursor; i++) {
+                if (pred.test(values[i])) {
+                    res[n ++] = values[i];
+                }
+            }
+            return new NonEmpty(res, n);
+        }
+
+        @Override
+        public <R> Collection<R> mapToObj(final IntFunction<R> fn) {
+            Collection<R> res = empty();
+            for (int i = 0; i < cursor; i++) {
+                res = res.build(fn.apply(values[i]));
+            }
+            return res;
+        }
+
+        @Override
+        public PrimitiveIterator.OfInt iterator() {
+            return Spliterators.iterator(spliterator());
+        }
+
+        @Override
+        public Spliterator.OfInt spliterator() {
+            return Spliterators.spliterator(values, 0, cursor, characteristics());
+        }
+
+        @Override
+        public int[] toArray() {
+            return copy(cursor);
+        }
+
+        @Override
+        public long sum() {
+            long res = 0;
+            for (int i = 0; i < cursor; i++) {
+                res += values[i];
+            }
+            return res;
+        }
+
+        @Override
+        public Maybe<Integer> min() {
+            if (cursor == 0)
+                return Maybe.nothing();
+            int res = values[0];
+            for (int i = 1; i < cursor; i++) {
+                res = Math.min(res, values[i]);
+            }
+            return Maybe.some(res);
+        }
+
+        @Override
+        public Maybe<Integer> max() {
+            if (cursor == 0)
+                return Maybe.nothing();
+            int res = values[0];
+            for (int i = 1; i < cursor; i++) {
+                res = Math.max(res, values[i]);
+            }
+            return Maybe.some(res);
+        }
+
+        @Override
+        void appendTo(final StringBuilder res, final int index) {
+            res.append(values[index]);
+        }
+
+        @Override
+        boolean sameAt(final int[] other, final int index) {
+            return other[index] == values[index];
+        }
+
+        @Override
+        int hashAt(final int index) {
+            return Integer.hashCode(values[index]);
+        }
+    }
+}
@@ -1,22 +1,40 @@
 package io.github.senthilganeshs.fj.ds;
 
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
 
 public interface List<T> extends Collection<T> {
     
     @Override List<T> build(final T input);
     
     static <R> List<R> of (final java.util.List<R> list) {
-        return list.stream().reduce(nil(), (rs, r) ->rs.build(r), (r1, r2) -> r2);
+        return List.<R>nil().toTransient().addAll(list).persistent();
     }
 
-    static <R> Collection<R> emptyQueue() {
-        return new EmptyList<>();
+    /**
+     * Builder appending to this list. Appending to a snoc list already
+     * allocates a single node and shares everything before it, so the
+     * builder has nothing to copy and only keeps the latest version.
+     * 
+     * @return
+     */
+    default Transient<T, List<T>> toTransient() {
+        return new Builder<>(this);
     }
 
-    static <R> Collection<R> newQueue(R[] values) {
-        return Arrays.stream(values).reduce(emptyQueue(), (queue, r) -> queue.build(r), (a, b) -> b);
+    static <R> Deque<R> emptyQueue() {
+        return Deque.nil();
+    }
+
+    static <R> Deque<R> newQueue(R[] values) {
+        return Deque.of(values);
     }
     
     @SafeVarargs
@@ -37,6 +55,15 @@ public interface List<T> extends Collection<T> {
         return (List<R>) EMPTY;
     }
     
+    public static <R> Collector<R, ?, List<R>> collector() {
+        return Collection.collector(List::nil);
+    }
+
+    @Override
+    default int characteristics() {
+        return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.IMMUTABLE;
+    }
+
     public static <R> List<R> cons(final List<R> head, final R tail) {
         return new LinkedList<>(head, tail);
     }
@@ -53,10 +80,25 @@ public interface List<T> extends Collection<T> {
             return seed;
         }
 
+        @Override
+        public <R> R foldr(R seed, BiFunction<T, R, R> fn) {
+            return seed;
+        }
+
         @Override
         public List<T> build(T input) {
             return new LinkedList<>(this, input);
         }
+
+        @Override
+        public int length() {
+            return 0;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return Collections.emptyIterator();
+        }
         
         @Override
         public String toString() {
@@ -73,16 +115,26 @@ public interface List<T> extends Collection<T> {
                 return true;
             return false;
         }
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
         
     }
     
     final static class LinkedList<T> implements List<T> {
         private final T tail;
         private final List<T> head;
+        private final int size;
+        //same as java.util.List#hashCode, extended from the cached hash of the prefix.
+        private final int hash;
         
         LinkedList (final List<T> head, final T tail) {
             this.head = head;
             this.tail = tail;
+            this.size = head.length() + 1;
+            this.hash = 31 * head.hashCode() + Objects.hashCode(tail);
         }
         
         @Override
@@ -91,8 +143,73 @@ public interface List<T> extends Collection<T> {
         }
         @Override
         public <R> R foldl(R seed, BiFunction<R, T, R> fn) {
-            return fn.apply(head.foldl(seed, (r, t) -> fn.apply(r, t)), tail);
+            final Walk<T> it = new Walk<>(this);
+            R res = seed;
+            while (it.hasNext()) {
+                res = fn.apply(res, it.next());
+            }
+            return res;
+        }
+
+        @Override
+        public <R> R foldWhile(R seed, BiFunction<R, T, R> fn, Predicate<R> pred) {
+            final Walk<T> it = new Walk<>(this);
+            R res = seed;
+            while (it.hasNext() && pred.test(res)) {
+                res = fn.apply(res, it.next());
+            }
+            return res;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <R> R foldr(R seed, BiFunction<T, R, R> fn) {
+            R res = seed;
+            for (List<T> node = this; node instanceof LinkedList; node = ((LinkedList<T>) node).head) {
+                res = fn.apply(((LinkedList<T>) node).tail, res);
+            }
+            return res;
+        }
+
+        @Override
+        public int length() {
+            return size;
+        }
+
+        /*
+         * Parallel folds need both halves at once, so this one copies.
+         */
+        @Override
+        public Collection<Collection<T>> split() {
+            final Object[] values = values();
+            return Array.halves(values, 0, values.length);
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Walk<>(this);
         }
+
+        @Override
+        public Spliterator<T> spliterator() {
+            return Spliterators.spliterator(iterator(), size, characteristics());
+        }
+
+        /*
+         * Elements in the left to right order, collected by walking the head
+         * links instead of recursing into them.
+         */
+        private Object[] values() {
+            final Object[] values = new Object[size];
+            List<T> node = this;
+            for (int i = size - 1; i >= 0; i--) {
+                final LinkedList<T> ll = (LinkedList<T>) node;
+                values[i] = ll.tail;
+                node = ll.head;
+            }
+            return values;
+        }
+
         @Override
         public List<T> build(T input) {
             return cons(this, input);
@@ -100,22 +217,128 @@ public interface List<T> extends Collection<T> {
 
         @Override
         public String toString() {
-            return head.foldl("[", (r, t) -> r + t + ",") + tail + "]";
+            return head.foldl(
+                new StringBuilder("["), 
+                (r, t) -> r.append(t).append(","))
+                .append(tail)
+                .append("]")
+                .toString();
         }
         
-        @SuppressWarnings({ "unchecked", "rawtypes" })
+        @SuppressWarnings("unchecked")
         @Override
         public boolean equals(final Object other) {
             if (other == null) return false;
             if (other == this) return true;
             
             if (other instanceof LinkedList) {
-                LinkedList<T> llOther = (LinkedList<T>) other;
-                if (llOther.tail.equals(((LinkedList) other).tail)) {
-                    return llOther.head.equals(head);
+                if (((LinkedList<T>) other).size != size)
+                    return false;
+                List<T> left = this;
+                List<T> right = (LinkedList<T>) other;
+                while (left instanceof LinkedList && right instanceof LinkedList) {
+                    if (left == right)
+                        return true;
+                    final LinkedList<T> llLeft = (LinkedList<T>) left;
+                    final LinkedList<T> llRight = (LinkedList<T>) right;
+                    if (llLeft.hash != llRight.hash || !Objects.equals(llLeft.tail, llRight.tail))
+                        return false;
+                    left = llLeft.head;
+                    right = llRight.head;
                 }
+                return left.equals(right);
             }
             return false;
         }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Left to right walk over the snoc links, which only lead right to left.
+     * A first pass marks every block-th node; the blocks are then read back
+     * from the deepest mark, each reversed into one buffer. Both arrays hold
+     * about the square root of the size, instead of every element.
+     */
+    final static class Walk<T> implements Iterator<T> {
+        private final Object[] marks;
+        private final Object[] buffer;
+        private final int size;
+        private int block;
+        private int index;
+        private int count;
+
+        Walk (final LinkedList<T> list) {
+            this.size = list.size;
+            final int width = Math.max(16, (int) Math.sqrt(size));
+            this.marks = new Object[(size + width - 1) / width];
+            this.buffer = new Object[Math.min(width, size)];
+            List<T> node = list;
+            for (int i = 0; i < size; i++) {
+                if (i % width == 0) {
+                    marks[i / width] = node;
+                }
+                node = ((LinkedList<T>) node).head;
+            }
+            this.block = marks.length;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < count || block > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            if (index == count) {
+                if (block == 0)
+                    throw new NoSuchElementException();
+                fill(-- block);
+            }
+            final T res = (T) buffer[index];
+            buffer[index ++] = null;
+            return res;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void fill(final int mark) {
+            count = Math.min(buffer.length, size - mark * buffer.length);
+            index = 0;
+            List<T> node = (List<T>) marks[mark];
+            for (int i = count - 1; i >= 0; i--) {
+                final LinkedList<T> ll = (LinkedList<T>) node;
+                buffer[i] = ll.tail;
+                node = ll.head;
+            }
+        }
+    }
+
+    final static class Builder<T> implements Transient<T, List<T>> {
+        private List<T> list;
+
+        Builder (final List<T> list) {
+            this.list = list;
+        }
+
+        @Override
+        public Builder<T> add(final T value) {
+            if (list == null)
+                throw new IllegalStateException("builder used after persistent()");
+            list = list.build(value);
+            return this;
+        }
+
+        @Override
+        public List<T> persistent() {
+            if (list == null)
+                throw new IllegalStateException("builder used after persistent()");
+            final List<T> res = list;
+            list = null;
+            return res;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,214 @@
+package io.github.senthilganeshs.fj.ds;
+
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Array of longs kept in a long[] so that the primitive operations never box.
+ * The generic {@link Collection} operations are still available and box on demand.
+ */
+public interface LongArray extends Collection<Long> {
+
+    LongArray append(final long value);
+
+    Maybe<Long> at(final int index);
+
+    long foldLong(final long seed, final LongBinaryOperator fn);
+
+    LongArray mapLong(final LongUnaryOperator fn);
+
+    LongArray filterLong(final LongPredicate pred);
+
+    <R> Collection<R> mapToObj(final LongFunction<R> fn);
+
+    long[] toArray();
+
+    long sum();
+
+    Maybe<Long> min();
+
+    Maybe<Long> max();
+
+    public static LongArray of (final long...values) {
+        if (values == null || values.length == 0)
+            return new NonEmpty(new long[1], 0);
+        return new NonEmpty(values.clone(), values.length);
+    }
+
+    public static LongArray of (final Collection<Long> values) {
+        return mapToLong(values, Long::longValue);
+    }
+
+    public static <T> LongArray mapToLong (final Collection<T> values, final ToLongFunction<T> fn) {
+        return values.foldl((LongArray) new NonEmpty(new long[16], 0), (r, t) -> r.append(fn.applyAsLong(t)));
+    }
+
+    final static class NonEmpty extends PrimitiveBuffer<long[]> implements LongArray {
+
+        NonEmpty (final long[] values, final int cursor) {
+            super(values, values.length, cursor);
+        }
+
+        @Override
+        long[] allocate(final int length) {
+            return new long[length];
+        }
+
+        @Override
+        public <R> Collection<R> empty() {
+            return new Array.NonEmpty<>(capacity(cursor));
+        }
+
+        @Override
+        public Collection<Long> build(final Long input) {
+            return append(input);
+        }
+
+        @Override
+        public LongArray append(final long value) {
+            final int index = next();
+            values[index] = value;
+            return this;
+        }
+
+        @Override
+        public Maybe<Long> at(final int index) {
+            return inRange(index) ? Maybe.some(values[index]) : Maybe.nothing();
+        }
+
+        @Override
+        public <R> R foldl(final R seed, final BiFunction<R, Long, R> fn) {
+            R res = seed;
+            for (int i = 0; i < cursor; i++) {
+                res = fn.apply(res, values[i]);
+            }
+            return res;
+        }
+
+        @Override
+        public <R> R foldWhile(final R seed, final BiFunction<R, Long, R> fn, final Predicate<R> pred) {
+            R res = seed;
+            for (int i = 0; i < cursor && pred.test(res); i++) {
+                res = fn.apply(res, values[i]);
+            }
+            return res;
+        }
+
+        @Override
+        public <R> R foldr(final R seed, final BiFunction<Long, R, R> fn) {
+            R res = seed;
+            for (int i = cursor - 1; i >= 0; i--) {
+                res = fn.apply(values[i], res);
+            }
+            return res;
+        }
+
+        @Override
+        public long foldLong(final long seed, final LongBinaryOperator fn) {
+            long res = seed;
+            for (int i = 0; i < cursor; i++) {
+                res = fn.applyAsLong(res, values[i]);
+            }
+            return res;
+        }
+
+        @Override
+        public LongArray mapLong(final LongUnaryOperator fn) {
+            final long[] res = allocate(capacity(cursor));
+            for (int i = 0; i < cursor; i++) {
+                res[i] = fn.applyAsLong(values[i]);
+            }
+            return new NonEmpty(res, cursor);
+        }
+
+        @Override
+        public LongArray filterLong(final LongPredicate pred) {
+            final long[] res = allocate(capacity(cursor));
+            int n = 0;
+            for (int i = 0; i < cursor; i++) {
+                if (pred.test(values[i])) {
+                    res[n ++] = values[i];
+                }
+            }
+            return new NonEmpty(res, n);
+        }
+
+        @Override
+        public <R> Collection<R> mapToObj(final LongFunction<R> fn) {
+            Collection<R> res = empty();
+            for (int i = 0; i < cursor; i++) {
+                res = res.build(fn.apply(values[i]));
+            }
+            return res;
+        }
+
+        @Override
+        public PrimitiveIterator.OfLong iterator() {
+            return Spliterators.iterator(spliterator());
+        }
+
+        @Override
+        public Spliterator.OfLong spliterator() {
+            return Spliterators.spliterator(values, 0, cursor, characteristics());
+        }
+
+        @Override
+        public long[] toArray() {
+            return copy(cursor);
+        }
+
+        @Override
+        public long sum() {
+            long res = 0;
+            for (int i = 0; i < cursor; i++) {
+                res += values[i];
+            }
+            return res;
+        }
+
+        @Override
+        public Maybe<Long> min() {
+            if (cursor == 0)
+                return Maybe.nothing();
+            long res = values[0];
+            for (int i = 1; i < cursor; i++) {
+                res = Math.min(res, values[i]);
+            }
+            return Maybe.some(res);
+        }
+
+        @Override
+        public Maybe<Long> max() {
+            if (cursor == 0)
+                return Maybe.nothing();
+            long res = values[0];
+            for (int i = 1; i < cursor; i++) {
+                res = Math.max(res, values[i]);
+            }
+            return Maybe.some(res);
+        }
+
+        @Override
+        void appendTo(final StringBuilder res, final int index) {
+            res.append(values[index]);
+        }
+
+        @Override
+        boolean sameAt(final long[] other, final int index) {
+            return other[index] == values[index];
+        }
+
+        @Override
+        int hashAt(final int index) {
+            return Long.hashCode(values[index]);
+        }
+    }
+}
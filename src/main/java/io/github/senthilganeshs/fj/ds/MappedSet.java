@@ -0,0 +1,488 @@
+package io.github.senthilganeshs.fj.ds;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * Read-only set served straight from a memory-mapped file, for sets too
+ * large to keep as tree nodes on the heap. Opening a file only maps it and
+ * checks its header; queries decode just the values they look at and leave
+ * the paging to the operating system.
+ *
+ * The file holds the values in ascending order, encoded with the element
+ * {@link Codec} and cut into blocks of a fixed number of values, followed
+ * by the offset of every block:
+ *
+ * <pre>
+ * magic | size | block size | hash | index offset | blocks ... | offsets ...
+ * </pre>
+ *
+ * A lookup binary searches the blocks by their first values, which are
+ * kept once decoded, and then scans a single block; range folds decode from the block holding the
+ * lower bound up to the upper bound. A file can be at most 2 GB, the most a
+ * single mapping can hold.
+ *
+ * @param <T>
+ */
+public interface MappedSet<T extends Comparable<T>> extends Set<T> {
+
+    static final int BLOCK = 64;
+
+    public static <R extends Comparable<R>> MappedSet<R> open(final Path path, final Codec<R> codec) throws IOException {
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException(path + " is larger than 2 GB");
+            //the mapping stays valid once the channel is closed.
+            return new Blocks<>(channel.map(MapMode.READ_ONLY, 0, channel.size()), codec);
+        }
+    }
+
+    public static <R extends Comparable<R>> void write(
+        final Path path, final Collection<R> values, final Codec<R> codec) throws IOException {
+        write(path, values, codec, BLOCK);
+    }
+
+    /**
+     * Writes the distinct values in ascending order. A {@link Set} already
+     * folds that way and is streamed as it is; any other collection is
+     * bulk loaded into one first.
+     *
+     * @param path
+     * @param values
+     * @param codec
+     * @param blockSize
+     * @throws IOException
+     */
+    public static <R extends Comparable<R>> void write(
+        final Path path, final Collection<R> values, final Codec<R> codec, final int blockSize) throws IOException {
+        if (blockSize <= 0)
+            throw new IllegalArgumentException("block size must be positive: " + blockSize);
+        final Set<R> set = values instanceof Set ? (Set<R>) values : Set.of(values);
+        final int size = set.length();
+        final long[] offsets = new long[(int) ((size + (long) blockSize - 1) / blockSize)];
+        try (final FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(Blocks.HEADER);
+            final Codec.Encoder out = Codec.Encoder.of(channel);
+            int i = 0;
+            int hash = 0;
+            for (final R value : set.iterable()) {
+                if (i % blockSize == 0) {
+                    offsets[i / blockSize] = Blocks.HEADER + out.position();
+                }
+                codec.write(out, value);
+                hash += value.hashCode();
+                i++;
+            }
+            final long index = Blocks.HEADER + out.position();
+            for (final long offset : offsets) {
+                out.writeLong(offset);
+            }
+            out.flush();
+            final ByteBuffer header = ByteBuffer.allocate(Blocks.HEADER);
+            header.putInt(Blocks.MAGIC).putInt(size).putInt(blockSize).putInt(hash).putLong(index).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+    }
+
+    /**
+     * Decodes every value into a tree on the heap, in linear time.
+     *
+     * @return
+     */
+    Set<T> toSet();
+
+    final static class Blocks<T extends Comparable<T>> implements MappedSet<T> {
+
+        static final int MAGIC = 0x464A4D53;
+        static final int HEADER = 24;
+
+        private final ByteBuffer bytes;
+        private final Codec<T> codec;
+        private final int size;
+        private final int blockSize;
+        private final int blocks;
+        //sum of the hashes of the values, as in java.util.Set#hashCode.
+        private final int hash;
+        private final int index;
+        /*
+         * First value of every block, decoded the first time a lookup probes
+         * the block. Racing readers may both decode it, which is harmless as
+         * the values are immutable.
+         */
+        private final Object[] firsts;
+
+        Blocks (final ByteBuffer bytes, final Codec<T> codec) throws IOException {
+            if (bytes.capacity() < HEADER || bytes.getInt(0) != MAGIC)
+                throw new StreamCorruptedException("not a mapped set");
+            this.bytes = bytes;
+            this.codec = codec;
+            this.size = bytes.getInt(4);
+            this.blockSize = bytes.getInt(8);
+            this.hash = bytes.getInt(12);
+            final long index = bytes.getLong(16);
+            if (size < 0 || blockSize <= 0)
+                throw new StreamCorruptedException("bad mapped set header");
+            this.blocks = (int) ((size + (long) blockSize - 1) / blockSize);
+            if (index < HEADER || index + 8L * blocks > bytes.capacity())
+                throw new StreamCorruptedException("mapped set index out of bounds");
+            this.index = (int) index;
+            this.firsts = new Object[blocks];
+        }
+
+        @Override
+        public boolean contains(final T value) {
+            final Reader in = new Reader();
+            final int block = in.block(value);
+            if (block < 0)
+                return false;
+            in.seek(block);
+            for (int i = count(block); i > 0; i--) {
+                final int cmp = in.read().compareTo(value);
+                if (cmp >= 0)
+                    return cmp == 0;
+            }
+            return false;
+        }
+
+        @Override
+        public int rank(final T value) {
+            final Reader in = new Reader();
+            final int block = in.block(value);
+            if (block < 0)
+                return 0;
+            in.seek(block);
+            int res = block * blockSize;
+            for (int i = count(block); i > 0 && in.read().compareTo(value) < 0; i--) {
+                res++;
+            }
+            return res;
+        }
+
+        @Override
+        public Maybe<T> select(final int index) {
+            if (index < 0 || index >= size)
+                return Maybe.nothing();
+            final Reader in = new Reader().seek(index / blockSize);
+            for (int i = index % blockSize; i > 0; i--) {
+                in.read();
+            }
+            return Maybe.some(in.read());
+        }
+
+        @Override
+        public Maybe<T> floor(final T value) {
+            final Reader in = new Reader();
+            final int block = in.block(value);
+            if (block < 0)
+                return Maybe.nothing();
+            in.seek(block);
+            T res = null;
+            for (int i = count(block); i > 0; i--) {
+                final T t = in.read();
+                if (t.compareTo(value) > 0)
+                    break;
+                res = t;
+            }
+            return Maybe.some(res);
+        }
+
+        @Override
+        public Maybe<T> ceiling(final T value) {
+            if (size == 0)
+                return Maybe.nothing();
+            final Reader in = new Reader();
+            final int block = Math.max(in.block(value), 0);
+            in.seek(block);
+            //runs on into the next block when this one has nothing as large.
+            for (int i = block * blockSize; i < size; i++) {
+                final T t = in.read();
+                if (t.compareTo(value) >= 0)
+                    return Maybe.some(t);
+            }
+            return Maybe.nothing();
+        }
+
+        @Override
+        public Maybe<T> min() {
+            return select(0);
+        }
+
+        @Override
+        public Maybe<T> max() {
+            return select(size - 1);
+        }
+
+        @Override
+        public Set<T> subSet(final T lo, final T hi) {
+            final ArrayList<T> values = foldWhile(lo, hi, new ArrayList<>(), (r, t) -> {
+                r.add(t);
+                return r;
+            }, r -> true);
+            return Balanced.balanced(values.toArray(), 0, values.size());
+        }
+
+        @Override
+        public Transient<T, Set<T>> toTransient() {
+            return toSet().toTransient();
+        }
+
+        @Override
+        public Set<T> toSet() {
+            final Object[] values = new Object[size];
+            foldl(0, (i, t) -> {
+                values[i] = t;
+                return i + 1;
+            });
+            return Balanced.balanced(values, 0, size);
+        }
+
+        /**
+         * The file is never written to, so adding a value copies the set
+         * onto the heap first.
+         */
+        @Override
+        public Set<T> build(final T value) {
+            return contains(value) ? this : toSet().build(value);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <R> Collection<R> empty() {
+            return (Collection<R>) EMPTY;
+        }
+
+        /*
+         * Compares with the value at the root of the balanced tree the file
+         * would load into.
+         */
+        @Override
+        public int compareTo(final T other) {
+            return size == 0 ? -1 : select(size / 2).foldl(0, (r, t) -> t.compareTo(other));
+        }
+
+        @Override
+        public int length() {
+            return size;
+        }
+
+        @Override
+        public <R> R foldl(final R seed, final BiFunction<R, T, R> fn) {
+            return foldWhile(null, null, seed, fn, r -> true);
+        }
+
+        @Override
+        public <R> R foldWhile(final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred) {
+            return foldWhile(null, null, seed, fn, pred);
+        }
+
+        @Override
+        public <R> R foldr(final R seed, final BiFunction<T, R, R> fn) {
+            return foldr(null, null, seed, fn);
+        }
+
+        @Override
+        public <R> R foldWhile(final T lo, final T hi, final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred) {
+            if (size == 0)
+                return seed;
+            final Reader in = new Reader();
+            final int block = lo == null ? 0 : Math.max(in.block(lo), 0);
+            //the blocks follow one another, so the reader goes on through them.
+            in.seek(block);
+            R res = seed;
+            for (int i = block * blockSize; i < size && pred.test(res); i++) {
+                final T t = in.read();
+                if (lo != null && t.compareTo(lo) < 0)
+                    continue;
+                if (hi != null && t.compareTo(hi) >= 0)
+                    break;
+                res = fn.apply(res, t);
+            }
+            return res;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <R> R foldr(final T lo, final T hi, final R seed, final BiFunction<T, R, R> fn) {
+            final Reader in = new Reader();
+            final int first = lo == null ? 0 : Math.max(in.block(lo), 0);
+            final int last = hi == null ? blocks - 1 : in.block(hi);
+            final Object[] values = new Object[blockSize];
+            R res = seed;
+            for (int block = last; block >= first; block--) {
+                in.seek(block);
+                final int n = count(block);
+                for (int i = 0; i < n; i++) {
+                    values[i] = in.read();
+                }
+                for (int i = n - 1; i >= 0; i--) {
+                    final T t = (T) values[i];
+                    if (hi != null && t.compareTo(hi) >= 0)
+                        continue;
+                    if (lo != null && t.compareTo(lo) < 0)
+                        return res;
+                    res = fn.apply(t, res);
+                }
+            }
+            return res;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return iterator(null, null);
+        }
+
+        @Override
+        public Iterator<T> iterator(final T lo, final T hi) {
+            return new Cursor(lo, hi);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (other == this) return true;
+            if (!(other instanceof Set))
+                return false;
+            final Set<?> sOther = (Set<?>) other;
+            if (sOther.length() != size || sOther.hashCode() != hash)
+                return false;
+            final Iterator<?> theirs = sOther.iterator();
+            for (final T value : iterable()) {
+                if (!Objects.equals(value, theirs.next()))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return foldl(
+                new StringBuilder("["),
+                (r, t) -> r.length() == 1 ? r.append(t) : r.append(",").append(t))
+                .append("]")
+                .toString();
+        }
+
+        private int count(final int block) {
+            return Math.min(blockSize, size - block * blockSize);
+        }
+
+        /*
+         * Every query reads through a view of its own, so readers on several
+         * threads never share a position.
+         */
+        private final class Reader {
+            private final ByteBuffer view = bytes.duplicate();
+            private final Codec.Decoder in = new Codec.Decoder(view);
+
+            Reader seek(final int block) {
+                view.position((int) bytes.getLong(index + 8 * block));
+                return this;
+            }
+
+            T read() {
+                try {
+                    return codec.read(in);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @SuppressWarnings("unchecked")
+            T first(final int block) {
+                T res = (T) firsts[block];
+                if (res == null) {
+                    res = seek(block).read();
+                    firsts[block] = res;
+                }
+                return res;
+            }
+
+            /*
+             * Last block starting with a value not above the given one, or -1
+             * when every value is larger.
+             */
+            int block(final T value) {
+                int lo = 0;
+                int hi = blocks - 1;
+                int res = -1;
+                while (lo <= hi) {
+                    final int mid = (lo + hi) >>> 1;
+                    if (first(mid).compareTo(value) <= 0) {
+                        res = mid;
+                        lo = mid + 1;
+                    } else {
+                        hi = mid - 1;
+                    }
+                }
+                return res;
+            }
+        }
+
+        private final class Cursor implements Iterator<T> {
+            private final T lo;
+            private final T hi;
+            private final Reader in = new Reader();
+            private int i;
+            private T next;
+
+            Cursor (final T lo, final T hi) {
+                this.lo = lo;
+                this.hi = hi;
+                if (size > 0) {
+                    final int block = lo == null ? 0 : Math.max(in.block(lo), 0);
+                    in.seek(block);
+                    this.i = block * blockSize;
+                    advance();
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (next == null)
+                    throw new NoSuchElementException();
+                final T res = next;
+                advance();
+                return res;
+            }
+
+            private void advance() {
+                next = null;
+                while (i < size) {
+                    final T t = in.read();
+                    i++;
+                    if (lo != null && t.compareTo(lo) < 0)
+                        continue;
+                    if (hi == null || t.compareTo(hi) < 0)
+                        next = t;
+                    else
+                        i = size;
+                    return;
+                }
+            }
+        }
+    }
+}
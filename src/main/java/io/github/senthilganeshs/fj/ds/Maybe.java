@@ -1,6 +1,8 @@
 package io.github.senthilganeshs.fj.ds;
 
+import java.util.Objects;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 
 
 public interface Maybe<T> extends Collection<T> {
@@ -15,6 +17,37 @@ public interface Maybe<T> extends Collection<T> {
     public static <R> Maybe<R> some (final R value) {
         return new Some<>(value);
     }
+
+    /**
+     * Applies fn to the values in order and builds the results into the
+     * empty structure of the values in the same pass. Stops at the first
+     * nothing, which is then the result.
+     * 
+     * @param <T>
+     * @param <R>
+     * @param values
+     * @param fn
+     * @return
+     */
+    public static <T, R> Maybe<Collection<R>> traverse (final Collection<T> values, final Function<T, Maybe<R>> fn) {
+        final Collection<R> seed = values.empty();
+        return values.foldWhile(some(seed),
+            (r, t) -> r.foldl(nothing(),
+                (__, rs) -> fn.apply(t).foldl(nothing(), (___, v) -> some(rs.build(v)))),
+            Maybe::isSome);
+    }
+
+    public static <R> Maybe<Collection<R>> sequence (final Collection<Maybe<R>> values) {
+        return traverse(values, m -> m);
+    }
+
+    default boolean isSome() {
+        return length() > 0;
+    }
+
+    default boolean isNothing() {
+        return !isSome();
+    }
     
     final static class Nothing<T> implements Maybe<T> {
 
@@ -33,6 +66,16 @@ public interface Maybe<T> extends Collection<T> {
             return seed;
         }
 
+        @Override
+        public <R> R foldr(R seed, BiFunction<T, R, R> fn) {
+            return seed;
+        }
+
+        @Override
+        public int length() {
+            return 0;
+        }
+
         @Override
         public String toString() {
             return "Nothing";
@@ -47,6 +90,11 @@ public interface Maybe<T> extends Collection<T> {
             }
             return false;
         }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
     }
     
     final static class Some<T> implements Maybe<T> {
@@ -72,6 +120,16 @@ public interface Maybe<T> extends Collection<T> {
             return fn.apply(seed, value);
         }
 
+        @Override
+        public <R> R foldr(R seed, BiFunction<T, R, R> fn) {
+            return fn.apply(value, seed);
+        }
+
+        @Override
+        public int length() {
+            return 1;
+        }
+
         @Override
         public String toString() {
             return "Some (" + value + ")";
@@ -84,9 +142,14 @@ public interface Maybe<T> extends Collection<T> {
             if (other == this) return true;
             if (other instanceof Some) {
                 Some<T> sOther = (Some<T>)other;
-                return sOther.value.equals(value);
+                return Objects.equals(sOther.value, value);
             }
             return false;
         }
+
+        @Override
+        public int hashCode() {
+            return 31 + Objects.hashCode(value);
+        }
     }
  }
\ No newline at end of file
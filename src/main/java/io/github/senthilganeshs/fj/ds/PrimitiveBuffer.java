@@ -0,0 +1,107 @@
+package io.github.senthilganeshs.fj.ds;
+
+/**
+ * Growth, cursor and bounds logic shared by {@link IntArray},
+ * {@link LongArray} and {@link DoubleArray}. The element type only shows up
+ * in allocate, the element-wise hooks and the subclasses' own loops, which
+ * index the array directly so that nothing boxes.
+ *
+ * @param <A> the primitive array type, like int[].
+ */
+abstract class PrimitiveBuffer<A> {
+
+    A values;
+    int cursor;
+    private int capacity;
+
+    PrimitiveBuffer (final A values, final int capacity, final int cursor) {
+        this.values = values;
+        this.capacity = capacity;
+        this.cursor = cursor;
+    }
+
+    /*
+     * New array of the element type with the given length.
+     */
+    abstract A allocate(final int length);
+
+    abstract void appendTo(final StringBuilder res, final int index);
+
+    abstract boolean sameAt(final A other, final int index);
+
+    abstract int hashAt(final int index);
+
+    /*
+     * Index to write the next value to, doubling the array when it is full.
+     * Call it before reading values, which it may replace.
+     */
+    final int next() {
+        if (cursor == capacity) {
+            capacity = Math.max(2 * capacity, 1);
+            values = copy(capacity);
+        }
+        return cursor ++;
+    }
+
+    final boolean inRange(final int index) {
+        return index >= 0 && index < cursor;
+    }
+
+    /*
+     * The first values, up to the given length, in a new array.
+     */
+    final A copy(final int length) {
+        final A res = allocate(length);
+        System.arraycopy(values, 0, res, 0, Math.min(cursor, length));
+        return res;
+    }
+
+    /*
+     * Length of an array holding n values; arrays never have length zero.
+     */
+    static int capacity(final int n) {
+        return Math.max(n, 1);
+    }
+
+    public int length() {
+        return cursor;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder res = new StringBuilder("[");
+        for (int i = 0; i < cursor; i++) {
+            if (i > 0)
+                res.append(",");
+            appendTo(res, i);
+        }
+        return res.append("]").toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean equals(final Object other) {
+        if (other == null) return false;
+        if (other == this) return true;
+        if (other.getClass() == getClass()) {
+            final PrimitiveBuffer<A> pOther = (PrimitiveBuffer<A>) other;
+            if (pOther.cursor != cursor)
+                return false;
+            for (int i = 0; i < cursor; i++) {
+                if (!sameAt(pOther.values, i))
+                    return false;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        int res = 1;
+        for (int i = 0; i < cursor; i++) {
+            res = 31 * res + hashAt(i);
+        }
+        return res;
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.senthilganeshs.fj.ds;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Mutable cell holding a persistent collection which can be shared between
+ * threads. Since the collections never change once built, a reader just
+ * takes the current value and folds it without any lock, while a writer
+ * builds the new version off the current one by path copying and publishes
+ * it with a single compareAndSet.
+ *
+ * A writer only retries when another thread published in between. It then
+ * backs off for a random, doubling number of nanoseconds before reading the
+ * new value, so that threads which keep colliding spread out instead of
+ * redoing the same work in lockstep.
+ *
+ * @param <C>
+ */
+public interface Ref<C extends Collection<?>> {
+
+    public static <R extends Collection<?>> Ref<R> of (final R initial) {
+        return new Atomic<>(initial);
+    }
+
+    /**
+     * Current value, which stays valid whatever the writers do afterwards.
+     *
+     * @return
+     */
+    C get();
+
+    void set(final C value);
+
+    /**
+     * Publishes the update if the cell still holds the expected instance.
+     *
+     * @param expected
+     * @param update
+     * @return
+     */
+    boolean compareAndSet(final C expected, final C update);
+
+    /**
+     * Applies fn to the current value and publishes the result, retrying
+     * with the newer value when another writer got in first. fn may run
+     * more than once and so should not have side effects.
+     *
+     * @param fn
+     * @return the published value.
+     */
+    C update(final Function<C, C> fn);
+
+    /**
+     * Like {@link #update(Function)} but returns the value it replaced.
+     *
+     * @param fn
+     * @return
+     */
+    C getAndUpdate(final Function<C, C> fn);
+
+    final static class Atomic<C extends Collection<?>> implements Ref<C> {
+
+        //first back-off and the cap it doubles up to, in nanoseconds.
+        private static final long MIN_BACKOFF = 1 << 6;
+        private static final long MAX_BACKOFF = 1 << 20;
+
+        private final AtomicReference<C> value;
+
+        Atomic (final C initial) {
+            this.value = new AtomicReference<>(initial);
+        }
+
+        @Override
+        public C get() {
+            return value.get();
+        }
+
+        @Override
+        public void set(final C update) {
+            value.set(update);
+        }
+
+        @Override
+        public boolean compareAndSet(final C expected, final C update) {
+            return value.compareAndSet(expected, update);
+        }
+
+        @Override
+        public C update(final Function<C, C> fn) {
+            return publish(fn, true);
+        }
+
+        @Override
+        public C getAndUpdate(final Function<C, C> fn) {
+            return publish(fn, false);
+        }
+
+        /*
+         * The retry loop of both updates, returning either side of the
+         * exchange that went through.
+         */
+        private C publish(final Function<C, C> fn, final boolean returnNext) {
+            long backoff = MIN_BACKOFF;
+            while (true) {
+                final C current = value.get();
+                final C next = fn.apply(current);
+                //nothing to publish, and nothing a concurrent writer could lose.
+                if (next == current || value.compareAndSet(current, next))
+                    return returnNext ? next : current;
+                backoff = backoff(backoff);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Ref (" + value.get() + ")";
+        }
+
+        private static long backoff(final long backoff) {
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(backoff) + 1);
+            return Math.min(backoff << 1, MAX_BACKOFF);
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package io.github.senthilganeshs.fj.ds;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Lazy view over a collection. map, filter, flatMap, take, drop and concat
+ * only record the operation; the whole chain runs as one fused foldWhile over
+ * the source when a terminal fold is applied, so nothing is materialized in
+ * between and take/find stop the source traversal as soon as they are done.
+ *
+ * Iterating or streaming a pipeline pulls the elements through the stages
+ * one at a time, again without materializing anything. Only the source
+ * knows its size; the later stages report none.
+ *
+ * The remaining {@link Collection} operations, like {@link #force()}, build
+ * into the empty structure of the source collection.
+ *
+ * @param <T>
+ */
+public interface Seq<T> extends Collection<T> {
+
+    public static <R> Seq<R> of (final Collection<R> source) {
+        return new Source<>(source);
+    }
+
+    /**
+     * Runs the pipeline into the empty structure of the source collection.
+     *
+     * @return
+     */
+    default Collection<T> force() {
+        final Collection<T> seed = empty();
+        return foldl(seed, (r, t) -> r.build(t));
+    }
+
+    @Override
+    default <R> R foldl(final R seed, final BiFunction<R, T, R> fn) {
+        return foldWhile(seed, fn, r -> true);
+    }
+
+    @Override
+    <R> R foldWhile(final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred);
+
+    @Override
+    default Seq<T> build(final T input) {
+        return new Concatenated<>(this, Maybe.some(input));
+    }
+
+    /**
+     * Filtering and flattening stages do not know their size up front.
+     */
+    @Override
+    default int characteristics() {
+        return Spliterator.ORDERED;
+    }
+
+    @Override
+    default Seq<T> seq() {
+        return this;
+    }
+
+    @Override
+    default Spliterator<T> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), characteristics());
+    }
+
+    @Override
+    default <R> Seq<R> map(final Function<T, R> fn) {
+        return new Mapped<>(this, fn);
+    }
+
+    @Override
+    default Seq<T> filter(final Predicate<T> pred) {
+        return new Filtered<>(this, pred);
+    }
+
+    @Override
+    default <R> Seq<R> flatMap(final Function<T, Collection<R>> fn) {
+        return new FlatMapped<>(this, fn);
+    }
+
+    @Override
+    default Seq<T> take(final int n) {
+        return new Taken<>(this, n);
+    }
+
+    @Override
+    default Seq<T> drop(final int n) {
+        return new Dropped<>(this, n);
+    }
+
+    @Override
+    default Seq<T> slice(final int start, final int n) {
+        return drop(start).take(n);
+    }
+
+    @Override
+    default Seq<T> concat(final Collection<T> other) {
+        return new Concatenated<>(this, other);
+    }
+
+    final static class Source<T> implements Seq<T> {
+        private final Collection<T> source;
+
+        Source (final Collection<T> source) {
+            this.source = source;
+        }
+
+        @Override
+        public <R> Collection<R> empty() {
+            return source.empty();
+        }
+
+        @Override
+        public <R> R foldWhile(final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred) {
+            return source.foldWhile(seed, fn, pred);
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return source.iterator();
+        }
+
+        @Override
+        public Spliterator<T> spliterator() {
+            return source.spliterator();
+        }
+    }
+
+    final static class Mapped<S, T> implements Seq<T> {
+        private final Seq<S> upstream;
+        private final Function<S, T> mapper;
+
+        Mapped (final Seq<S> upstream, final Function<S, T> mapper) {
+            this.upstream = upstream;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public <R> Collection<R> empty() {
+            return upstream.empty();
+        }
+
+        @Override
+        public <R> R foldWhile(final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred) {
+            return upstream.foldWhile(seed, (r, s) -> fn.apply(r, mapper.apply(s)), pred);
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            final Iterator<S> it = upstream.iterator();
+            return new Iterator<T>() {
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public T next() {
+                    return mapper.apply(it.next());
+                }
+            };
+        }
+    }
+
+    final static class Filtered<T> implements Seq<T> {
+        private final Seq<T> upstream;
+        private final Predicate<T> filter;
+
+        Filtered (final Seq<T> upstream, final Predicate<T> filter) {
+            this.upstream = upstream;
+            this.filter = filter;
+        }
+
+        @Override
+        public <R> Collection<R> empty() {
+            return upstream.empty();
+        }
+
+        @Override
+        public <R> R foldWhile(final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred) {
+            return upstream.foldWhile(seed, (r, t) -> filter.test(t) ? fn.apply(r, t) : r, pred);
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            final Iterator<T> it = upstream.iterator();
+            return new Pull<T>() {
+                @Override
+                boolean pull() {
+                    while (it.hasNext()) {
+                        final T t = it.next();
+                        if (filter.test(t)) {
+                            next = t;
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+
+    final static class FlatMapped<S, T> implements Seq<T> {
+        private final Seq<S> upstream;
+        private final Function<S, Collection<T>> mapper;
+
+        FlatMapped (final Seq<S> upstream, final Function<S, Collection<T>> mapper) {
+            this.upstream = upstream;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public <R> Collection<R> empty() {
+            return upstream.empty();
+        }
+
+        @Override
+        public <R> R foldWhile(final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred) {
+            return upstream.foldWhile(seed, (r, s) -> mapper.apply(s).foldWhile(r, fn, pred), pred);
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            final Iterator<S> it = upstream.iterator();
+            return new Pull<T>() {
+                private Iterator<T> inner = Collections.emptyIterator();
+
+                @Override
+                boolean pull() {
+                    while (!inner.hasNext()) {
+                        if (!it.hasNext())
+                            return false;
+                        inner = mapper.apply(it.next()).iterator();
+                    }
+                    next = inner.next();
+                    return true;
+                }
+            };
+        }
+    }
+
+    final static class Taken<T> implements Seq<T> {
+        private final Seq<T> upstream;
+        private final int n;
+
+        Taken (final Seq<T> upstream, final int n) {
+            this.upstream = upstream;
+            this.n = n;
+        }
+
+        @Override
+        public <R> Collection<R> empty() {
+            return upstream.empty();
+        }
+
+        @Override
+        public <R> R foldWhile(final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred) {
+            final int[] remaining = { n };
+            return upstream.foldWhile(seed,
+                (r, t) -> {
+                    remaining[0] --;
+                    return fn.apply(r, t);
+                },
+                r -> remaining[0] > 0 && pred.test(r));
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            final Iterator<T> it = upstream.iterator();
+            return new Pull<T>() {
+                private int remaining = n;
+
+                @Override
+                boolean pull() {
+                    if (remaining <= 0 || !it.hasNext())
+                        return false;
+                    remaining --;
+                    next = it.next();
+                    return true;
+                }
+            };
+        }
+    }
+
+    final static class Dropped<T> implements Seq<T> {
+        private final Seq<T> upstream;
+        private final int n;
+
+        Dropped (final Seq<T> upstream, final int n) {
+            this.upstream = upstream;
+            this.n = n;
+        }
+
+        @Override
+        public <R> Collection<R> empty() {
+            return upstream.empty();
+        }
+
+        @Override
+        public <R> R foldWhile(final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred) {
+            final int[] remaining = { n };
+            return upstream.foldWhile(seed,
+                (r, t) -> {
+                    if (remaining[0] > 0) {
+                        remaining[0] --;
+                        return r;
+                    }
+                    return fn.apply(r, t);
+                },
+                pred);
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            final Iterator<T> it = upstream.iterator();
+            return new Pull<T>() {
+                private int remaining = n;
+
+                @Override
+                boolean pull() {
+                    for (; remaining > 0 && it.hasNext(); remaining --) {
+                        it.next();
+                    }
+                    if (!it.hasNext())
+                        return false;
+                    next = it.next();
+                    return true;
+                }
+            };
+        }
+    }
+
+    final static class Concatenated<T> implements Seq<T> {
+        private final Seq<T> upstream;
+        private final Collection<T> other;
+
+        Concatenated (final Seq<T> upstream, final Collection<T> other) {
+            this.upstream = upstream;
+            this.other = other;
+        }
+
+        @Override
+        public <R> Collection<R> empty() {
+            return upstream.empty();
+        }
+
+        @Override
+        public <R> R foldWhile(final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred) {
+            final R res = upstream.foldWhile(seed, fn, pred);
+            return pred.test(res) ? other.foldWhile(res, fn, pred) : res;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Pull<T>() {
+                private Iterator<T> it = upstream.iterator();
+                private boolean last;
+
+                @Override
+                boolean pull() {
+                    if (!it.hasNext() && !last) {
+                        it = other.iterator();
+                        last = true;
+                    }
+                    if (!it.hasNext())
+                        return false;
+                    next = it.next();
+                    return true;
+                }
+            };
+        }
+    }
+
+    /**
+     * Iterator of a stage which has to look ahead to know if there is a next
+     * element. Elements may be null, so a flag and not next tells them apart.
+     */
+    abstract static class Pull<T> implements Iterator<T> {
+        T next;
+        private boolean ready;
+        private boolean done;
+
+        /*
+         * Stores the following element in next, or returns false at the end.
+         */
+        abstract boolean pull();
+
+        @Override
+        public boolean hasNext() {
+            if (!ready && !done) {
+                ready = pull();
+                done = !ready;
+            }
+            return ready;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            final T res = next;
+            next = null;
+            ready = false;
+            return res;
+        }
+    }
+}
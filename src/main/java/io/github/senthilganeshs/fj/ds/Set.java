@@ -1,8 +1,19 @@
 package io.github.senthilganeshs.fj.ds;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
 
 public interface Set <T extends Comparable<T>> extends Collection<T>, Comparable<T> {
 
@@ -27,27 +38,150 @@ public interface Set <T extends Comparable<T>> extends Collection<T>, Comparable
     }
     
     static <R extends Comparable<R>> Set<R> of(final Collection<R> values) {
-        return values.foldl(nil(), (r, t) -> r.build(t));
+        return Balanced.of(
+            values.foldl(new ArrayList<R>(), (r, t) -> {
+                r.add(t);
+                return r;
+            }).toArray(), 
+            null);
     }
     
     static <R extends Comparable<R>> Set<R> of(final java.util.Collection<R> values) {
-        Set<R> tree = nil();
-        for (final R value : values) {
-            tree = tree.build(value);
-        }
-        return tree;
+        return Balanced.of(values.toArray(), null);
     }   
+
+    /**
+     * Bulk loads the values, building the two halves of every subtree larger
+     * than {@link Balanced#THRESHOLD} in parallel on the given pool.
+     * 
+     * @param <R>
+     * @param values
+     * @param pool
+     * @return
+     */
+    static <R extends Comparable<R>> Set<R> of(final java.util.Collection<R> values, final ForkJoinPool pool) {
+        return Balanced.of(values.toArray(), pool);
+    }
     
     @SuppressWarnings("unchecked")
     static <R extends Comparable<R>> Set<R> of(R... values) {
-        Set<R> tree = nil();
         if (values == null || values.length == 0)
-            return tree;
-        
-        for (final R value  : values) {
-            tree = tree.build(value);            
-        }
-        return tree;
+            return nil();
+        return Balanced.of(values.clone(), null);
+    }
+
+    /**
+     * Collects a stream into a set, sorting all the values once and bulk
+     * loading them instead of inserting one at a time.
+     * 
+     * @param <R>
+     * @return
+     */
+    static <R extends Comparable<R>> Collector<R, ?, Set<R>> collector() {
+        return Collector.<R, ArrayList<R>, Set<R>>of(
+            ArrayList::new,
+            ArrayList::add,
+            (r1, r2) -> {
+                r1.addAll(r2);
+                return r1;
+            },
+            Set::of);
+    }
+
+    /**
+     * Number of values smaller than the given value.
+     * 
+     * @param value
+     * @return
+     */
+    int rank(final T value);
+
+    /**
+     * The value with the given rank, counting from zero, or nothing if the
+     * index is out of range.
+     * 
+     * @param index
+     * @return
+     */
+    Maybe<T> select(final int index);
+
+    /**
+     * The greatest value less than or equal to the given value.
+     * 
+     * @param value
+     * @return
+     */
+    Maybe<T> floor(final T value);
+
+    /**
+     * The least value greater than or equal to the given value.
+     * 
+     * @param value
+     * @return
+     */
+    Maybe<T> ceiling(final T value);
+
+    Maybe<T> min();
+
+    Maybe<T> max();
+
+    /**
+     * Folds the values from lo, inclusive, to hi, exclusive. A null bound
+     * leaves that side open.
+     *
+     * @param <R>
+     * @param lo
+     * @param hi
+     * @param seed
+     * @param fn
+     * @param pred
+     * @return
+     */
+    <R> R foldWhile(final T lo, final T hi, final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred);
+
+    <R> R foldr(final T lo, final T hi, final R seed, final BiFunction<T, R, R> fn);
+
+    Iterator<T> iterator(final T lo, final T hi);
+
+    /**
+     * Set of its own holding the values from lo, inclusive, to hi, exclusive.
+     * A null bound leaves that side open.
+     * 
+     * @param lo
+     * @param hi
+     * @return
+     */
+    Set<T> subSet(final T lo, final T hi);
+
+    /**
+     * View of the values from lo, inclusive, to hi, exclusive. Folding the
+     * view visits only the values in the range and its length is computed
+     * from two ranks. A null bound leaves that side open.
+     * 
+     * @param lo
+     * @param hi
+     * @return
+     */
+    default Range<T> range(final T lo, final T hi) {
+        return new Range<>(this, lo, hi);
+    }
+
+    static <R extends Comparable<R>> Transient<R, Set<R>> transientOf() {
+        return new Builder<R>((AVLTree<R>) Set.<R>nil());
+    }
+
+    /**
+     * Builder starting from this set. It shares what it can of this set and
+     * copies only what the batch changes.
+     * 
+     * @return
+     */
+    Transient<T, Set<T>> toTransient();
+
+    @Override
+    default int characteristics() {
+        return Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT 
+            | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.IMMUTABLE;
     }
 
     interface AVLTree <T extends Comparable<T>> extends Set<T> {
@@ -63,18 +197,260 @@ public interface Set <T extends Comparable<T>> extends Collection<T>, Comparable
         AVLTree<T> rotateRight();
 
         int height();
+
+        int size();
+
+        /**
+         * Joins this tree, the key and the right tree into one balanced tree.
+         * Every value in this tree must be smaller than the key and every
+         * value in the right tree larger.
+         * 
+         * @param key
+         * @param right
+         * @return
+         */
+        default AVLTree<T> join (final T key, final AVLTree<T> right) {
+            return Algebra.join(this, key, right);
+        }
+
+        /**
+         * Splits this tree into the values smaller and larger than the key.
+         * 
+         * @param key
+         * @return
+         */
+        default Split<T> split (final T key) {
+            return Algebra.split(this, key);
+        }
+
+        default AVLTree<T> union (final AVLTree<T> other) {
+            return Algebra.combine(Algebra.UNION, this, other);
+        }
+
+        default AVLTree<T> intersection (final AVLTree<T> other) {
+            return Algebra.combine(Algebra.INTERSECTION, this, other);
+        }
+
+        default AVLTree<T> difference (final AVLTree<T> other) {
+            return Algebra.combine(Algebra.DIFFERENCE, this, other);
+        }
+
+        @Override
+        default int rank(final T value) {
+            int res = 0;
+            AVLTree<T> tree = this;
+            while (tree instanceof NonEmpty) {
+                final NonEmpty<T> node = (NonEmpty<T>) tree;
+                final int cmp = value.compareTo(node.value);
+                if (cmp == 0)
+                    return res + node.left.size();
+                if (cmp < 0) {
+                    tree = node.left;
+                } else {
+                    res += node.left.size() + 1;
+                    tree = node.right;
+                }
+            }
+            return res;
+        }
+
+        @Override
+        default Maybe<T> select(final int index) {
+            int i = index;
+            AVLTree<T> tree = this;
+            if (i < 0 || i >= tree.size())
+                return Maybe.nothing();
+            while (tree instanceof NonEmpty) {
+                final NonEmpty<T> node = (NonEmpty<T>) tree;
+                final int leftSize = node.left.size();
+                if (i == leftSize)
+                    return Maybe.some(node.value);
+                if (i < leftSize) {
+                    tree = node.left;
+                } else {
+                    i -= leftSize + 1;
+                    tree = node.right;
+                }
+            }
+            return Maybe.nothing();
+        }
+
+        @Override
+        default Maybe<T> floor(final T value) {
+            T res = null;
+            AVLTree<T> tree = this;
+            while (tree instanceof NonEmpty) {
+                final NonEmpty<T> node = (NonEmpty<T>) tree;
+                final int cmp = value.compareTo(node.value);
+                if (cmp == 0)
+                    return Maybe.some(node.value);
+                if (cmp < 0) {
+                    tree = node.left;
+                } else {
+                    res = node.value;
+                    tree = node.right;
+                }
+            }
+            return res == null ? Maybe.nothing() : Maybe.some(res);
+        }
+
+        @Override
+        default Maybe<T> ceiling(final T value) {
+            T res = null;
+            AVLTree<T> tree = this;
+            while (tree instanceof NonEmpty) {
+                final NonEmpty<T> node = (NonEmpty<T>) tree;
+                final int cmp = value.compareTo(node.value);
+                if (cmp == 0)
+                    return Maybe.some(node.value);
+                if (cmp > 0) {
+                    tree = node.right;
+                } else {
+                    res = node.value;
+                    tree = node.left;
+                }
+            }
+            return res == null ? Maybe.nothing() : Maybe.some(res);
+        }
+
+        @Override
+        default Maybe<T> min() {
+            AVLTree<T> tree = this;
+            if (!(tree instanceof NonEmpty))
+                return Maybe.nothing();
+            while (((NonEmpty<T>) tree).left instanceof NonEmpty) {
+                tree = ((NonEmpty<T>) tree).left;
+            }
+            return Maybe.some(((NonEmpty<T>) tree).value);
+        }
+
+        @Override
+        default Maybe<T> max() {
+            AVLTree<T> tree = this;
+            if (!(tree instanceof NonEmpty))
+                return Maybe.nothing();
+            while (((NonEmpty<T>) tree).right instanceof NonEmpty) {
+                tree = ((NonEmpty<T>) tree).right;
+            }
+            return Maybe.some(((NonEmpty<T>) tree).value);
+        }
+
+        /*
+         * A null bound is already satisfied by every value of the subtree;
+         * once both are, the whole subtree is folded directly.
+         */
+        @Override
+        default <R> R foldWhile(final T lo, final T hi, final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred) {
+            if (lo == null && hi == null)
+                return foldWhile(seed, fn, pred);
+            if (!(this instanceof NonEmpty))
+                return seed;
+            final NonEmpty<T> node = (NonEmpty<T>) this;
+            if (lo != null && node.value.compareTo(lo) < 0)
+                return node.right.foldWhile(lo, hi, seed, fn, pred);
+            if (hi != null && node.value.compareTo(hi) >= 0)
+                return node.left.foldWhile(lo, hi, seed, fn, pred);
+            final R res = node.left.foldWhile(lo, null, seed, fn, pred);
+            if (!pred.test(res))
+                return res;
+            return node.right.foldWhile(null, hi, fn.apply(res, node.value), fn, pred);
+        }
+
+        @Override
+        default <R> R foldr(final T lo, final T hi, final R seed, final BiFunction<T, R, R> fn) {
+            if (lo == null && hi == null)
+                return foldr(seed, fn);
+            if (!(this instanceof NonEmpty))
+                return seed;
+            final NonEmpty<T> node = (NonEmpty<T>) this;
+            if (lo != null && node.value.compareTo(lo) < 0)
+                return node.right.foldr(lo, hi, seed, fn);
+            if (hi != null && node.value.compareTo(hi) >= 0)
+                return node.left.foldr(lo, hi, seed, fn);
+            return node.left.foldr(lo, null, fn.apply(node.value, node.right.foldr(null, hi, seed, fn)), fn);
+        }
+
+        @Override
+        default Iterator<T> iterator(final T lo, final T hi) {
+            return new InOrder<>(this, lo, hi);
+        }
+
+        /*
+         * Two splits, sharing the subtrees inside the range.
+         */
+        @Override
+        default Set<T> subSet(final T lo, final T hi) {
+            AVLTree<T> res = this;
+            if (lo != null) {
+                final Split<T> low = res.split(lo);
+                res = low.value().foldl(low.right(), (r, v) -> r.build(v));
+            }
+            return hi == null ? res : res.split(hi).left();
+        }
+
+        @Override
+        default Transient<T, Set<T>> toTransient() {
+            return new Builder<>(this);
+        }
+    }
+
+    final class Split<T extends Comparable<T>> {
+        private final AVLTree<T> left;
+        private final Maybe<T> value;
+        private final AVLTree<T> right;
+
+        Split (final AVLTree<T> left, final Maybe<T> value, final AVLTree<T> right) {
+            this.left = left;
+            this.value = value;
+            this.right = right;
+        }
+
+        public AVLTree<T> left() {
+            return left;
+        }
+
+        /**
+         * The value of the tree equal to the key, if there was one.
+         * 
+         * @return
+         */
+        public Maybe<T> value() {
+            return value;
+        }
+
+        public AVLTree<T> right() {
+            return right;
+        }
     }
    
     final class NonEmpty<T extends Comparable<T>> implements AVLTree<T> {
 
-        private final AVLTree<T> right;
-        private final AVLTree<T> left;
+        /*
+         * Only a Builder owning the edit token writes to these after
+         * construction; persistent() drops the token, so they are fixed from
+         * then on. See Transient for publishing a set built that way.
+         */
+        private AVLTree<T> right;
+        private AVLTree<T> left;
         private final T value;
+        private int height;
+        private int size;
+        //sum of the hashes of the values, as in java.util.Set#hashCode.
+        private int hash;
+        private final Object edit;
 
         NonEmpty (final T value, final AVLTree<T> left, final AVLTree<T> right) {
+            this(value, left, right, null);
+        }
+
+        NonEmpty (final T value, final AVLTree<T> left, final AVLTree<T> right, final Object edit) {
             this.value = value;
             this.left = left;
             this.right = right;
+            this.edit = edit;
+            this.height = 1 + Math.max(left.height(), right.height());
+            this.size = 1 + left.size() + right.size();
+            this.hash = left.hashCode() + right.hashCode() + value.hashCode();
         }
         
         @SuppressWarnings("unchecked")
@@ -89,6 +465,40 @@ public interface Set <T extends Comparable<T>> extends Collection<T>, Comparable
                 fn.apply(left.foldl(seed, fn), value), 
                 fn);
         }
+
+        @Override
+        public <R> R foldWhile(R seed, BiFunction<R, T, R> fn, Predicate<R> pred) {
+            final R res = left.foldWhile(seed, fn, pred);
+            if (!pred.test(res))
+                return res;
+            return right.foldWhile(fn.apply(res, value), fn, pred);
+        }
+
+        @Override
+        public <R> R foldr(R seed, BiFunction<T, R, R> fn) {
+            return left.foldr(
+                fn.apply(value, right.foldr(seed, fn)), 
+                fn);
+        }
+
+        @Override
+        public Collection<Collection<T>> split() {
+            return List.<Collection<T>>nil()
+                .build(left)
+                .build(Maybe.some(value))
+                .build(right);
+        }
+
+        @Override
+        public Collection<T> reverse() {
+            //elements are always kept in the sorted order.
+            return this;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new InOrder<>(this);
+        }
                 
         @Override
         public AVLTree<T> build(T other) {
@@ -105,6 +515,9 @@ public interface Set <T extends Comparable<T>> extends Collection<T>, Comparable
                 lf = this.left;
                 rt = right.build(other);
             }
+            //the value was already there, so the path need not be copied.
+            if (lf == this.left && rt == this.right)
+                return this;
 
             int lfh = lf.height();
             int rth = rt.height();
@@ -149,7 +562,17 @@ public interface Set <T extends Comparable<T>> extends Collection<T>, Comparable
 
         @Override
         public int height() {
-            return 1 + Math.max(left.height(), right.height());
+            return height;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int length() {
+            return size;
         }
         
         @Override
@@ -186,10 +609,44 @@ public interface Set <T extends Comparable<T>> extends Collection<T>, Comparable
             if (other == null) return false;
             if (other == this) return true;
             if (other instanceof NonEmpty) {
-                return ((NonEmpty<T>) other).value.equals(value);
+                final NonEmpty<T> sOther = (NonEmpty<T>) other;
+                return sOther.size == size && sOther.hash == hash && sameValues(this, sOther);
             }
+            //any other kind of set compares by walking its values.
+            if (other instanceof Set && !(other instanceof AVLTree))
+                return other.equals(this);
             return false;
         }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        /*
+         * Trees of the same size hold the same values when their roots are
+         * equal and their left subtrees are as large and hold the same values,
+         * so shared subtrees compare by reference. Differently shaped trees
+         * fall back to an in-order walk.
+         */
+        private static <T extends Comparable<T>> boolean sameValues(final AVLTree<T> tree, final AVLTree<T> other) {
+            if (tree == other || tree.size() == 0)
+                return true;
+            final NonEmpty<T> x = (NonEmpty<T>) tree;
+            final NonEmpty<T> y = (NonEmpty<T>) other;
+            if (x.left.size() == y.left.size()) {
+                return x.value.equals(y.value) 
+                    && sameValues(x.left, y.left) 
+                    && sameValues(x.right, y.right);
+            }
+            final Iterator<T> mine = x.iterator();
+            final Iterator<T> theirs = y.iterator();
+            while (mine.hasNext()) {
+                if (!mine.next().equals(theirs.next()))
+                    return false;
+            }
+            return true;
+        }
     }
     
     class Empty<T extends Comparable<T>> implements AVLTree<T> {
@@ -205,6 +662,11 @@ public interface Set <T extends Comparable<T>> extends Collection<T>, Comparable
             return seed;
         }
 
+        @Override
+        public <R> R foldr(R seed, BiFunction<T, R, R> fn) {
+            return seed;
+        }
+
         @SuppressWarnings("unchecked")
         @Override
         public AVLTree<T> build(T value) {
@@ -229,7 +691,32 @@ public interface Set <T extends Comparable<T>> extends Collection<T>, Comparable
         @Override
         public int height() {
             return 0;
-        } 
+        }
+
+        @Override
+        public int size() {
+            return 0;
+        }
+
+        @Override
+        public int length() {
+            return 0;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return Collections.emptyIterator();
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Set && ((Set<?>) other).length() == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
         
         @Override
         public String toString() {
@@ -251,4 +738,475 @@ public interface Set <T extends Comparable<T>> extends Collection<T>, Comparable
             return false;
         }
     }
+
+    final class Builder<T extends Comparable<T>> implements Transient<T, Set<T>> {
+        private Object edit = new Object();
+        private AVLTree<T> root;
+        private boolean added;
+
+        Builder (final AVLTree<T> root) {
+            this.root = root;
+        }
+
+        @Override
+        public Builder<T> add(final T value) {
+            if (edit == null)
+                throw new IllegalStateException("builder used after persistent()");
+            added = false;
+            root = insert(root, value);
+            return this;
+        }
+
+        @Override
+        public Set<T> persistent() {
+            if (edit == null)
+                throw new IllegalStateException("builder used after persistent()");
+            edit = null;
+            return root;
+        }
+
+        private AVLTree<T> insert(final AVLTree<T> tree, final T value) {
+            if (!(tree instanceof NonEmpty)) {
+                added = true;
+                return new NonEmpty<>(value, tree, tree, edit);
+            }
+            final NonEmpty<T> node = (NonEmpty<T>) tree;
+            final int cmp = node.value.compareTo(value);
+            if (cmp == 0)
+                return node;
+            final AVLTree<T> newChild = insert(cmp > 0 ? node.left : node.right, value);
+            if (!added)
+                return node;
+            final NonEmpty<T> res = editable(node);
+            if (cmp > 0) {
+                res.left = newChild;
+            } else {
+                res.right = newChild;
+            }
+            return balance(res);
+        }
+
+        private NonEmpty<T> editable(final NonEmpty<T> node) {
+            return node.edit == edit ? node : new NonEmpty<>(node.value, node.left, node.right, edit);
+        }
+
+        private static <T extends Comparable<T>> void update(final NonEmpty<T> node) {
+            node.height = 1 + Math.max(node.left.height(), node.right.height());
+            node.size = 1 + node.left.size() + node.right.size();
+            node.hash = node.left.hashCode() + node.right.hashCode() + node.value.hashCode();
+        }
+
+        private AVLTree<T> balance(final NonEmpty<T> node) {
+            final int diff = node.left.height() - node.right.height();
+            if (diff > 1) {
+                final NonEmpty<T> left = (NonEmpty<T>) node.left;
+                if (left.left.height() < left.right.height()) {
+                    node.left = liftRight(left);
+                }
+                return liftLeft(node);
+            }
+            if (diff < -1) {
+                final NonEmpty<T> right = (NonEmpty<T>) node.right;
+                if (right.right.height() < right.left.height()) {
+                    node.right = liftLeft(right);
+                }
+                return liftRight(node);
+            }
+            update(node);
+            return node;
+        }
+
+        /*
+         * Makes the left child the root of the subtree; the node is editable.
+         */
+        private NonEmpty<T> liftLeft(final NonEmpty<T> node) {
+            final NonEmpty<T> left = editable((NonEmpty<T>) node.left);
+            node.left = left.right;
+            update(node);
+            left.right = node;
+            update(left);
+            return left;
+        }
+
+        /*
+         * Makes the right child the root of the subtree; the node is editable.
+         */
+        private NonEmpty<T> liftRight(final NonEmpty<T> node) {
+            final NonEmpty<T> right = editable((NonEmpty<T>) node.right);
+            node.right = right.left;
+            update(node);
+            right.left = node;
+            update(right);
+            return right;
+        }
+    }
+
+    /**
+     * Range of a set, leaving the bounded folds to the set itself.
+     */
+    final class Range<T extends Comparable<T>> implements Collection<T> {
+        private final Set<T> tree;
+        private final T lo;
+        private final T hi;
+
+        Range (final Set<T> tree, final T lo, final T hi) {
+            this.tree = tree;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        public boolean contains(final T value) {
+            return (lo == null || value.compareTo(lo) >= 0) 
+                && (hi == null || value.compareTo(hi) < 0) 
+                && tree.contains(value);
+        }
+
+        /**
+         * Copies the range into a set of its own.
+         * 
+         * @return
+         */
+        public Set<T> toSet() {
+            return isEmpty() ? nil() : tree.subSet(lo, hi);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <R> Collection<R> empty() {
+            return (Collection<R>) nil();
+        }
+
+        @Override
+        public Collection<T> build(final T value) {
+            return toSet().build(value);
+        }
+
+        @Override
+        public int length() {
+            if (isEmpty())
+                return 0;
+            return (hi == null ? tree.length() : tree.rank(hi)) - (lo == null ? 0 : tree.rank(lo));
+        }
+
+        @Override
+        public <R> R foldl(final R seed, final BiFunction<R, T, R> fn) {
+            return foldWhile(seed, fn, r -> true);
+        }
+
+        @Override
+        public <R> R foldWhile(final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred) {
+            if (isEmpty())
+                return seed;
+            return tree.foldWhile(lo, hi, seed, fn, pred);
+        }
+
+        @Override
+        public <R> R foldr(final R seed, final BiFunction<T, R, R> fn) {
+            if (isEmpty())
+                return seed;
+            return tree.foldr(lo, hi, seed, fn);
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            if (isEmpty())
+                return Collections.emptyIterator();
+            return tree.iterator(lo, hi);
+        }
+
+        @Override
+        public int characteristics() {
+            return tree.characteristics();
+        }
+
+        /*
+         * Bounds which cross leave nothing; an open side never does.
+         */
+        private boolean isEmpty() {
+            return lo != null && hi != null && lo.compareTo(hi) >= 0;
+        }
+
+        @Override
+        public String toString() {
+            return foldl(
+                new StringBuilder("["),
+                (r, t) -> r.length() == 1 ? r.append(t) : r.append(",").append(t))
+                .append("]")
+                .toString();
+        }
+    }
+
+    /**
+     * In-order iterator keeping the path of pending ancestors on an explicit
+     * stack, so it never holds more than the height of the tree.
+     */
+    final class InOrder<T extends Comparable<T>> implements Iterator<T> {
+        private final ArrayDeque<NonEmpty<T>> path = new ArrayDeque<>();
+        private final T hi;
+
+        InOrder (final AVLTree<T> root) {
+            this.hi = null;
+            descend(root);
+        }
+
+        /*
+         * Starts at the first value not below lo and stops before hi.
+         */
+        InOrder (final AVLTree<T> root, final T lo, final T hi) {
+            this.hi = hi;
+            AVLTree<T> tree = root;
+            while (tree instanceof NonEmpty) {
+                final NonEmpty<T> node = (NonEmpty<T>) tree;
+                if (lo != null && node.value.compareTo(lo) < 0) {
+                    tree = node.right;
+                } else {
+                    path.push(node);
+                    tree = node.left;
+                }
+            }
+        }
+
+        private void descend(AVLTree<T> tree) {
+            while (tree instanceof NonEmpty) {
+                final NonEmpty<T> node = (NonEmpty<T>) tree;
+                path.push(node);
+                tree = node.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !path.isEmpty() && (hi == null || path.peek().value.compareTo(hi) < 0);
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            final NonEmpty<T> node = path.pop();
+            descend(node.right);
+            return node.value;
+        }
+    }
+
+    /**
+     * Builds a perfectly balanced tree from sorted, distinct values in linear
+     * time without any rotations.
+     */
+    final class Balanced<T extends Comparable<T>> extends RecursiveTask<AVLTree<T>> {
+
+        private static final long serialVersionUID = 1L;
+
+        static final int THRESHOLD = 1 << 13;
+
+        private final Object[] values;
+        private final int from;
+        private final int to;
+
+        Balanced (final Object[] values, final int from, final int to) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        /*
+         * Sorts the values in place unless they already are (the merge sort
+         * also picks up partially sorted runs) and drops all but the first of
+         * equal values, the same one an incremental build would have kept.
+         */
+        @SuppressWarnings("unchecked")
+        static <R extends Comparable<R>> Set<R> of(final Object[] values, final ForkJoinPool pool) {
+            int n = values.length;
+            if (n == 0)
+                return nil();
+            if (!sorted(values)) {
+                Arrays.sort(values);
+            }
+            int distinct = 1;
+            for (int i = 1; i < n; i++) {
+                if (((R) values[distinct - 1]).compareTo((R) values[i]) != 0) {
+                    values[distinct ++] = values[i];
+                }
+            }
+            if (pool == null || distinct <= THRESHOLD)
+                return balanced(values, 0, distinct);
+            return pool.invoke(new Balanced<R>(values, 0, distinct));
+        }
+
+        @SuppressWarnings("unchecked")
+        static <R extends Comparable<R>> AVLTree<R> balanced(final Object[] values, final int from, final int to) {
+            if (from >= to)
+                return (AVLTree<R>) EMPTY;
+            final int mid = (from + to) >>> 1;
+            return new NonEmpty<>(
+                (R) values[mid], 
+                balanced(values, from, mid), 
+                balanced(values, mid + 1, to));
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <R extends Comparable<R>> boolean sorted(final Object[] values) {
+            for (int i = 1; i < values.length; i++) {
+                if (((R) values[i - 1]).compareTo((R) values[i]) > 0)
+                    return false;
+            }
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        protected AVLTree<T> compute() {
+            if (to - from <= THRESHOLD)
+                return balanced(values, from, to);
+            final int mid = (from + to) >>> 1;
+            final Balanced<T> left = new Balanced<>(values, from, mid);
+            left.fork();
+            final AVLTree<T> right = new Balanced<T>(values, mid + 1, to).compute();
+            return new NonEmpty<>((T) values[mid], left.join(), right);
+        }
+    }
+
+    /**
+     * Join based set operations. Everything is expressed through join, which
+     * rebalances along a single spine, so the results share every untouched
+     * subtree with the inputs. Operations on large trees fork their left
+     * halves onto the fork/join pool.
+     */
+    final class Algebra<T extends Comparable<T>> extends RecursiveTask<AVLTree<T>> {
+
+        private static final long serialVersionUID = 1L;
+
+        static final int UNION = 0;
+        static final int INTERSECTION = 1;
+        static final int DIFFERENCE = 2;
+
+        static final int THRESHOLD = 1 << 13;
+
+        private final int op;
+        private final AVLTree<T> first;
+        private final AVLTree<T> second;
+
+        Algebra (final int op, final AVLTree<T> first, final AVLTree<T> second) {
+            this.op = op;
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        protected AVLTree<T> compute() {
+            return combine(op, first, second);
+        }
+
+        static <T extends Comparable<T>> AVLTree<T> combine(final int op, final AVLTree<T> first, final AVLTree<T> second) {
+            if (first.size() == 0)
+                return op == UNION ? second : first;
+            if (second.size() == 0)
+                return op == INTERSECTION ? second : first;
+
+            final NonEmpty<T> node = (NonEmpty<T>) second;
+            final Split<T> split = split(first, node.value);
+
+            final AVLTree<T> left;
+            final AVLTree<T> right;
+            if (first.size() + second.size() > THRESHOLD) {
+                final Algebra<T> task = new Algebra<>(op, split.left, node.left);
+                task.fork();
+                right = combine(op, split.right, node.right);
+                left = task.join();
+            } else {
+                left = combine(op, split.left, node.left);
+                right = combine(op, split.right, node.right);
+            }
+
+            switch (op) {
+                case UNION:
+                    return join(left, split.value.foldl(node.value, (r, t) -> t), right);
+                case INTERSECTION:
+                    //the two-way join is only needed when the key is missing.
+                    if (split.value.isNothing())
+                        return join(left, right);
+                    return split.value.foldl(left, (r, t) -> join(left, t, right));
+                default:
+                    return join(left, right);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T extends Comparable<T>> Split<T> split(final AVLTree<T> tree, final T key) {
+            if (tree.size() == 0)
+                return new Split<>(tree, Maybe.nothing(), tree);
+            final NonEmpty<T> node = (NonEmpty<T>) tree;
+            final int cmp = key.compareTo(node.value);
+            if (cmp == 0)
+                return new Split<>(node.left, Maybe.some(node.value), node.right);
+            if (cmp < 0) {
+                final Split<T> split = split(node.left, key);
+                return new Split<>(split.left, split.value, join(split.right, node.value, node.right));
+            }
+            final Split<T> split = split(node.right, key);
+            return new Split<>(join(node.left, node.value, split.left), split.value, split.right);
+        }
+
+        static <T extends Comparable<T>> AVLTree<T> join(final AVLTree<T> left, final T key, final AVLTree<T> right) {
+            if (left.height() > right.height() + 1)
+                return joinRight((NonEmpty<T>) left, key, right);
+            if (right.height() > left.height() + 1)
+                return joinLeft(left, key, (NonEmpty<T>) right);
+            return new NonEmpty<>(key, left, right);
+        }
+
+        /*
+         * Joins without a middle key by pulling the largest value out of the left tree.
+         */
+        static <T extends Comparable<T>> AVLTree<T> join(final AVLTree<T> left, final AVLTree<T> right) {
+            if (left.size() == 0)
+                return right;
+            if (right.size() == 0)
+                return left;
+            final NonEmpty<T> node = (NonEmpty<T>) left;
+            if (node.right.size() == 0)
+                return join(node.left, node.value, right);
+            final Split<T> last = splitLast(node);
+            return join(last.left, last.value.foldl(node.value, (r, t) -> t), right);
+        }
+
+        private static <T extends Comparable<T>> Split<T> splitLast(final NonEmpty<T> node) {
+            if (node.right.size() == 0)
+                return new Split<>(node.left, Maybe.some(node.value), node.right);
+            final Split<T> last = splitLast((NonEmpty<T>) node.right);
+            return new Split<>(join(node.left, node.value, last.left), last.value, last.right);
+        }
+
+        /*
+         * Walks down the right spine of the taller left tree until the heights
+         * meet. rotateRight lifts the right child, rotateLeft the left child.
+         */
+        private static <T extends Comparable<T>> AVLTree<T> joinRight(final NonEmpty<T> left, final T key, final AVLTree<T> right) {
+            if (left.right.height() <= right.height() + 1) {
+                final AVLTree<T> joined = new NonEmpty<>(key, left.right, right);
+                if (joined.height() <= left.left.height() + 1)
+                    return new NonEmpty<>(left.value, left.left, joined);
+                return new NonEmpty<>(left.value, left.left, joined.rotateLeft()).rotateRight();
+            }
+            final AVLTree<T> joined = joinRight((NonEmpty<T>) left.right, key, right);
+            final AVLTree<T> res = new NonEmpty<>(left.value, left.left, joined);
+            if (joined.height() <= left.left.height() + 1)
+                return res;
+            return res.rotateRight();
+        }
+
+        private static <T extends Comparable<T>> AVLTree<T> joinLeft(final AVLTree<T> left, final T key, final NonEmpty<T> right) {
+            if (right.left.height() <= left.height() + 1) {
+                final AVLTree<T> joined = new NonEmpty<>(key, left, right.left);
+                if (joined.height() <= right.right.height() + 1)
+                    return new NonEmpty<>(right.value, joined, right.right);
+                return new NonEmpty<>(right.value, joined.rotateRight(), right.right).rotateLeft();
+            }
+            final AVLTree<T> joined = joinLeft(left, key, (NonEmpty<T>) right.left);
+            final AVLTree<T> res = new NonEmpty<>(right.value, joined, right.right);
+            if (joined.height() <= right.right.height() + 1)
+                return res;
+            return res.rotateLeft();
+        }
+    }
 }
@@ -1,26 +1,86 @@
 package io.github.senthilganeshs.fj.ds;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.BiFunction;
+import java.util.function.Predicate;
 
 public interface Stack<T> extends Collection<T>{
 
-    static <R> Collection<R> emptyStack() {
+    @Override Stack<T> build(final T input);
+
+    /**
+     * Top of the stack or nothing if the stack is empty.
+     * 
+     * @return
+     */
+    Maybe<T> peek();
+
+    /**
+     * Stack below the top. Popping an empty stack returns it unchanged.
+     * 
+     * @return
+     */
+    Stack<T> pop();
+
+    static <R> Stack<R> nil() {
         return new Empty<>();
     }
 
+    static <R> Collection<R> emptyStack() {
+        return nil();
+    }
+
     static <R> Collection<R> newStack(R[] values) {
         return Arrays.stream(values).reduce(emptyStack(), (stack, r) -> stack.build(r), (a, b) -> b);
     }
 
+    /**
+     * Stack which several threads can push on and pop from at once.
+     * 
+     * @return
+     */
+    static <R> Concurrent<R> concurrent() {
+        return new Concurrent<>(0);
+    }
+
+    /**
+     * Concurrent stack which, when a CAS on the top fails, first tries to
+     * hand the value straight to a thread doing the opposite operation
+     * through one of width exchange slots.
+     * 
+     * @param width
+     * @return
+     */
+    static <R> Concurrent<R> concurrent(final int width) {
+        return new Concurrent<>(width);
+    }
+
+    @Override
+    default int characteristics() {
+        return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.IMMUTABLE;
+    }
+
     final static class NonEmpty<T> implements Stack<T> {
 
-        private Stack<T> tail;
-        private T head;
+        private final Stack<T> tail;
+        private final T head;
+        private final int size;
+        //java.util.List#hashCode of the elements from the bottom to the top.
+        private final int hash;
 
         NonEmpty(T head, Stack<T> tail) {
             this.head = head;
             this.tail = tail;
+            this.size = tail.length() + 1;
+            this.hash = 31 * tail.hashCode() + Objects.hashCode(head);
         }
 
         @Override
@@ -29,16 +89,274 @@ public interface Stack<T> extends Collection<T>{
         }
 
         @Override
-        public Collection<T> build(T input) {
+        public Stack<T> build(T input) {
             return new NonEmpty<T>(input, this);
         }
 
+        @Override
+        public Maybe<T> peek() {
+            return Maybe.some(head);
+        }
+
+        @Override
+        public Stack<T> pop() {
+            return tail;
+        }
+
         @Override
         public <R> R foldl(R seed, BiFunction<R, T, R> fn) {
-            return tail.foldl(fn.apply(seed, head), fn);
+            R res = seed;
+            for (Stack<T> node = this; node instanceof NonEmpty; node = ((NonEmpty<T>) node).tail) {
+                res = fn.apply(res, ((NonEmpty<T>) node).head);
+            }
+            return res;
+        }
+
+        @Override
+        public <R> R foldWhile(R seed, BiFunction<R, T, R> fn, Predicate<R> pred) {
+            R res = seed;
+            for (Stack<T> node = this; node instanceof NonEmpty && pred.test(res); node = ((NonEmpty<T>) node).tail) {
+                res = fn.apply(res, ((NonEmpty<T>) node).head);
+            }
+            return res;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <R> R foldr(R seed, BiFunction<T, R, R> fn) {
+            final Object[] values = values();
+            R res = seed;
+            for (int i = values.length - 1; i >= 0; i--) {
+                res = fn.apply((T) values[i], res);
+            }
+            return res;
+        }
+
+        @Override
+        public int length() {
+            return size;
+        }
+
+        @Override
+        public Collection<Collection<T>> split() {
+            final Object[] values = values();
+            return Array.halves(values, 0, values.length);
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private Stack<T> node = NonEmpty.this;
+
+                @Override
+                public boolean hasNext() {
+                    return node instanceof NonEmpty;
+                }
+
+                @Override
+                public T next() {
+                    if (!(node instanceof NonEmpty))
+                        throw new NoSuchElementException();
+                    final NonEmpty<T> top = (NonEmpty<T>) node;
+                    node = top.tail;
+                    return top.head;
+                }
+            };
+        }
+
+        /*
+         * Elements from the top to the bottom of the stack.
+         */
+        private Object[] values() {
+            final Object[] values = new Object[size];
+            Stack<T> node = this;
+            for (int i = 0; i < size; i++) {
+                values[i] = ((NonEmpty<T>) node).head;
+                node = ((NonEmpty<T>) node).tail;
+            }
+            return values;
+        }
+
+        @Override
+        public Collection<T> reverse() {
+            //pushing in the fold order leaves the last element on top.
+            return foldl(empty(), (r, t) -> r.build(t));
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean equals(final Object other) {
+            if (other == null) return false;
+            if (other == this) return true;
+            if (other instanceof NonEmpty) {
+                if (((NonEmpty<T>) other).size != size)
+                    return false;
+                Stack<T> left = this;
+                Stack<T> right = (NonEmpty<T>) other;
+                while (left instanceof NonEmpty && right instanceof NonEmpty) {
+                    if (left == right)
+                        return true;
+                    final NonEmpty<T> neLeft = (NonEmpty<T>) left;
+                    final NonEmpty<T> neRight = (NonEmpty<T>) right;
+                    if (neLeft.hash != neRight.hash || !Objects.equals(neLeft.head, neRight.head))
+                        return false;
+                    left = neLeft.tail;
+                    right = neRight.tail;
+                }
+                return left.equals(right);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
         }
     }
 
+    /**
+     * Treiber stack over the persistent nodes. push and pop build the new
+     * top off the current one and publish it with a CAS, retrying when
+     * another thread got in first; since the nodes never change, the top
+     * seen at any moment is a complete persistent {@link Stack}, which
+     * {@link #snapshot()} hands out in O(1) and every fold runs over.
+     *
+     * With elimination enabled, a push or pop whose CAS failed looks for a
+     * partner in a random exchange slot before retrying. A push parks its
+     * value in an empty slot for a short while; a pop which finds it there
+     * takes it, and the pair completes without touching the top at all.
+     * Under heavy contention that takes most of the traffic off the one
+     * hot reference.
+     */
+    final static class Concurrent<T> implements Collection<T> {
+
+        //how many times a waiting push checks whether its value was taken.
+        private static final int WAIT = 64;
+
+        private final AtomicReference<Stack<T>> top = new AtomicReference<>(new Empty<>());
+        private final AtomicReferenceArray<Offer<T>> exchange;
+
+        Concurrent (final int width) {
+            this.exchange = width > 0 ? new AtomicReferenceArray<>(width) : null;
+        }
+
+        public Concurrent<T> push(final T value) {
+            while (true) {
+                final Stack<T> current = top.get();
+                if (top.compareAndSet(current, new NonEmpty<>(value, current)))
+                    return this;
+                if (exchange != null && offer(value))
+                    return this;
+            }
+        }
+
+        /**
+         * Removes the top or returns nothing if the stack is empty.
+         * 
+         * @return
+         */
+        public Maybe<T> pop() {
+            while (true) {
+                final Stack<T> current = top.get();
+                if (!(current instanceof NonEmpty))
+                    return Maybe.nothing();
+                final NonEmpty<T> node = (NonEmpty<T>) current;
+                if (top.compareAndSet(current, node.tail))
+                    return Maybe.some(node.head);
+                if (exchange != null) {
+                    final Offer<T> offer = take();
+                    if (offer != null)
+                        return Maybe.some(offer.value);
+                }
+            }
+        }
+
+        public Maybe<T> peek() {
+            return top.get().peek();
+        }
+
+        /**
+         * Persistent stack as of now, unaffected by later pushes and pops.
+         * 
+         * @return
+         */
+        public Stack<T> snapshot() {
+            return top.get();
+        }
+
+        @Override
+        public <R> Collection<R> empty() {
+            return new Concurrent<>(exchange == null ? 0 : exchange.length());
+        }
+
+        @Override
+        public Concurrent<T> build(final T input) {
+            return push(input);
+        }
+
+        @Override
+        public int length() {
+            return top.get().length();
+        }
+
+        @Override
+        public <R> R foldl(final R seed, final BiFunction<R, T, R> fn) {
+            return top.get().foldl(seed, fn);
+        }
+
+        @Override
+        public <R> R foldWhile(final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred) {
+            return top.get().foldWhile(seed, fn, pred);
+        }
+
+        @Override
+        public <R> R foldr(final R seed, final BiFunction<T, R, R> fn) {
+            return top.get().foldr(seed, fn);
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return top.get().iterator();
+        }
+
+        @Override
+        public Spliterator<T> spliterator() {
+            return top.get().spliterator();
+        }
+
+        private boolean offer(final T value) {
+            final int slot = ThreadLocalRandom.current().nextInt(exchange.length());
+            final Offer<T> offer = new Offer<>(value);
+            if (!exchange.compareAndSet(slot, null, offer))
+                return false;
+            for (int i = 0; i < WAIT; i++) {
+                if (exchange.get(slot) != offer)
+                    return true;
+            }
+            //failing to withdraw means a pop took the value meanwhile.
+            return !exchange.compareAndSet(slot, offer, null);
+        }
+
+        private Offer<T> take() {
+            final int slot = ThreadLocalRandom.current().nextInt(exchange.length());
+            final Offer<T> offer = exchange.get(slot);
+            if (offer != null && exchange.compareAndSet(slot, offer, null))
+                return offer;
+            return null;
+        }
+
+        /*
+         * Fresh for every attempt, so a slot can not be mistaken for an
+         * earlier offer of the same value.
+         */
+        private final static class Offer<T> {
+            private final T value;
+
+            Offer (final T value) {
+                this.value = value;
+            }
+        }
+    }
 
     final static class Empty<T> implements Stack<T> {
 
@@ -48,13 +366,48 @@ public interface Stack<T> extends Collection<T>{
         }
 
         @Override
-        public Collection<T> build(T input) {
+        public Stack<T> build(T input) {
             return new NonEmpty<T>(input, this);
         }
 
+        @Override
+        public Maybe<T> peek() {
+            return Maybe.nothing();
+        }
+
+        @Override
+        public Stack<T> pop() {
+            return this;
+        }
+
         @Override
         public <R> R foldl(R seed, BiFunction<R, T, R> fn) {
             return seed;
         }
+
+        @Override
+        public <R> R foldr(R seed, BiFunction<T, R, R> fn) {
+            return seed;
+        }
+
+        @Override
+        public int length() {
+            return 0;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return Collections.emptyIterator();
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Empty;
+        }
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
     }
 }
@@ -0,0 +1,35 @@
+package io.github.senthilganeshs.fj.ds;
+
+/**
+ * Mutable builder for a persistent collection. While the batch runs it
+ * updates the nodes it created itself in place instead of copying their
+ * paths; {@link #persistent()} then hands back an immutable collection in
+ * O(1) and retires the builder, so later calls to it fail with an
+ * {@link IllegalStateException}.
+ *
+ * A builder is meant to be used by a single thread. Once it is retired its
+ * nodes never change again, but they were written without any fence: hand
+ * the result to other threads through a final or volatile field, a
+ * {@link Ref} or a concurrent collection, as with any mutable object.
+ *
+ * @param <T>
+ * @param <P>
+ */
+public interface Transient<T, P extends Collection<T>> {
+
+    Transient<T, P> add(final T value);
+
+    default Transient<T, P> addAll(final Collection<T> values) {
+        return values.foldl(this, (r, t) -> r.add(t));
+    }
+
+    default Transient<T, P> addAll(final Iterable<T> values) {
+        Transient<T, P> res = this;
+        for (final T value : values) {
+            res = res.add(value);
+        }
+        return res;
+    }
+
+    P persistent();
+}
@@ -0,0 +1,466 @@
+package io.github.senthilganeshs.fj.ds;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+
+/**
+ * Immutable indexed sequence stored as a 32-way bit-partitioned trie with
+ * the last (up to 32) elements kept in a separate tail buffer. Every update
+ * copies only the path from the root to the touched leaf, so older versions
+ * stay valid and can be shared across threads without copying.
+ *
+ * @param <T>
+ */
+public interface Vector<T> extends Collection<T> {
+
+    @Override Vector<T> build(final T input);
+
+    /**
+     * Element at the index or nothing if the index is out of range.
+     *
+     * @param index
+     * @return
+     */
+    Maybe<T> at(final int index);
+
+    /**
+     * Replaces the element at the index. Out of range indexes leave the vector unchanged.
+     *
+     * @param index
+     * @param value
+     * @return
+     */
+    Vector<T> update(final int index, final T value);
+
+    Vector<T> append(final T value);
+
+    /**
+     * Removes the last element. Popping an empty vector returns it unchanged.
+     *
+     * @return
+     */
+    Vector<T> pop();
+
+    static final Vector<Void> EMPTY = new Trie<>(0, Trie.BITS, Trie.EMPTY_NODE, new Object[0]);
+
+    @SuppressWarnings("unchecked")
+    public static <R> Vector<R> nil() {
+        return (Vector<R>) EMPTY;
+    }
+
+    @SafeVarargs
+    public static <R> Vector<R> of (final R...values) {
+        if (values == null || values.length == 0)
+            return nil();
+        final Transient<R, Vector<R>> builder = transientOf();
+        for (final R value : values) {
+            builder.add(value);
+        }
+        return builder.persistent();
+    }
+
+    static <R> Vector<R> of (final Collection<R> values) {
+        return Vector.<R>transientOf().addAll(values).persistent();
+    }
+
+    public static <R> Collector<R, ?, Vector<R>> collector() {
+        return Collector.<R, Transient<R, Vector<R>>, Vector<R>>of(
+            Vector::transientOf,
+            Transient::add,
+            (r1, r2) -> r1.addAll(r2.persistent()),
+            Transient::persistent);
+    }
+
+    static <R> Transient<R, Vector<R>> transientOf() {
+        return Vector.<R>nil().toTransient();
+    }
+
+    /**
+     * Builder appending in place to the tail and to the trie nodes it created.
+     *
+     * @return
+     */
+    Transient<T, Vector<T>> toTransient();
+
+    @Override
+    default int characteristics() {
+        return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.IMMUTABLE;
+    }
+
+    final static class Trie<T> implements Vector<T> {
+
+        private static final int BITS = 5;
+        private static final int WIDTH = 1 << BITS;
+        private static final int MASK = WIDTH - 1;
+        private static final Node EMPTY_NODE = new Node(new Object[WIDTH]);
+
+        private final int size;
+        private final int shift;
+        private final Node root;
+        private final Object[] tail;
+        private int hash;
+
+        Trie (final int size, final int shift, final Node root, final Object[] tail) {
+            this.size = size;
+            this.shift = shift;
+            this.root = root;
+            this.tail = tail;
+        }
+
+        @Override
+        public <R> Collection<R> empty() {
+            return nil();
+        }
+
+        @Override
+        public Vector<T> build(final T input) {
+            return append(input);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <R> R foldl(final R seed, final BiFunction<R, T, R> fn) {
+            R res = seed;
+            for (int i = 0; i < size; ) {
+                final Object[] leaf = leafFor(i);
+                for (final Object value : leaf) {
+                    res = fn.apply(res, (T) value);
+                }
+                i += leaf.length;
+            }
+            return res;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <R> R foldWhile(final R seed, final BiFunction<R, T, R> fn, final Predicate<R> pred) {
+            R res = seed;
+            for (int i = 0; i < size; ) {
+                final Object[] leaf = leafFor(i);
+                for (final Object value : leaf) {
+                    if (!pred.test(res))
+                        return res;
+                    res = fn.apply(res, (T) value);
+                }
+                i += leaf.length;
+            }
+            return res;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <R> R foldr(final R seed, final BiFunction<T, R, R> fn) {
+            R res = seed;
+            for (int i = size - 1; i >= 0; ) {
+                final Object[] leaf = leafFor(i);
+                for (int j = leaf.length - 1; j >= 0; j--) {
+                    res = fn.apply((T) leaf[j], res);
+                }
+                i -= leaf.length;
+            }
+            return res;
+        }
+
+        @Override
+        public int length() {
+            return size;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private int index = 0;
+                private Object[] leaf;
+
+                @Override
+                public boolean hasNext() {
+                    return index < size;
+                }
+
+                @SuppressWarnings("unchecked")
+                @Override
+                public T next() {
+                    if (index >= size)
+                        throw new NoSuchElementException();
+                    if ((index & MASK) == 0 || leaf == null) {
+                        leaf = leafFor(index);
+                    }
+                    return (T) leaf[index ++ & MASK];
+                }
+            };
+        }
+
+        @Override
+        public Spliterator<T> spliterator() {
+            return Spliterators.spliterator(iterator(), size, characteristics());
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Maybe<T> at(final int index) {
+            if (index < 0 || index >= size)
+                return Maybe.nothing();
+            return Maybe.some((T) leafFor(index)[index & MASK]);
+        }
+
+        @Override
+        public Vector<T> update(final int index, final T value) {
+            if (index < 0 || index >= size)
+                return this;
+            if (index >= tailOffset()) {
+                final Object[] newTail = tail.clone();
+                newTail[index & MASK] = value;
+                return new Trie<>(size, shift, root, newTail);
+            }
+            return new Trie<>(size, shift, update(shift, root, index, value), tail);
+        }
+
+        @Override
+        public Vector<T> append(final T value) {
+            if (size - tailOffset() < WIDTH) {
+                final Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+                newTail[tail.length] = value;
+                return new Trie<>(size + 1, shift, root, newTail);
+            }
+
+            final Node tailNode = new Node(tail);
+            if ((size >>> BITS) > (1 << shift)) {
+                //root is full, grow the trie by one level.
+                final Node newRoot = new Node(new Object[WIDTH]);
+                newRoot.array[0] = root;
+                newRoot.array[1] = path(shift, tailNode);
+                return new Trie<>(size + 1, shift + BITS, newRoot, new Object[] { value });
+            }
+            return new Trie<>(size + 1, shift, pushTail(shift, root, tailNode), new Object[] { value });
+        }
+
+        @Override
+        public Transient<T, Vector<T>> toTransient() {
+            return new Builder<>(this);
+        }
+
+        @Override
+        public Vector<T> pop() {
+            if (size == 0)
+                return this;
+            if (size == 1)
+                return nil();
+            if (size - tailOffset() > 1)
+                return new Trie<>(size - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+
+            final Object[] newTail = leafFor(size - 2);
+            Node newRoot = popTail(shift, root);
+            int newShift = shift;
+            if (newRoot == null) {
+                newRoot = EMPTY_NODE;
+            }
+            if (shift > BITS && newRoot.array[1] == null) {
+                //only one child left, drop a level.
+                newRoot = (Node) newRoot.array[0];
+                newShift -= BITS;
+            }
+            return new Trie<>(size - 1, newShift, newRoot, newTail);
+        }
+
+        @Override
+        public String toString() {
+            return foldl(
+                new StringBuilder("["),
+                (r, t) -> r.length() == 1 ? r.append(t) : r.append(",").append(t))
+                .append("]")
+                .toString();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean equals(final Object other) {
+            if (other == null) return false;
+            if (other == this) return true;
+            if (other instanceof Trie) {
+                final Trie<T> vOther = (Trie<T>) other;
+                if (vOther.size != size || (hash != 0 && vOther.hash != 0 && vOther.hash != hash))
+                    return false;
+                for (int i = 0; i < size; ) {
+                    final Object[] leaf = leafFor(i);
+                    final Object[] otherLeaf = vOther.leafFor(i);
+                    if (leaf != otherLeaf && !Arrays.equals(leaf, otherLeaf))
+                        return false;
+                    i += leaf.length;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        /*
+         * java.util.List#hashCode of the elements, computed on first use.
+         */
+        @Override
+        public int hashCode() {
+            int res = hash;
+            if (res == 0) {
+                res = foldl(1, (r, t) -> 31 * r + Objects.hashCode(t));
+                hash = res;
+            }
+            return res;
+        }
+
+        private int tailOffset() {
+            return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+        }
+
+        private Object[] leafFor(final int index) {
+            if (index >= tailOffset())
+                return tail;
+            Node node = root;
+            for (int level = shift; level > 0; level -= BITS) {
+                node = (Node) node.array[(index >>> level) & MASK];
+            }
+            return node.array;
+        }
+
+        private static Node update(final int level, final Node node, final int index, final Object value) {
+            final Node res = new Node(node.array.clone());
+            if (level == 0) {
+                res.array[index & MASK] = value;
+            } else {
+                final int child = (index >>> level) & MASK;
+                res.array[child] = update(level - BITS, (Node) node.array[child], index, value);
+            }
+            return res;
+        }
+
+        private Node pushTail(final int level, final Node parent, final Node tailNode) {
+            final int child = ((size - 1) >>> level) & MASK;
+            final Node res = new Node(parent.array.clone());
+            if (level == BITS) {
+                res.array[child] = tailNode;
+            } else {
+                final Node existing = (Node) parent.array[child];
+                res.array[child] = existing != null ?
+                    pushTail(level - BITS, existing, tailNode) :
+                    path(level - BITS, tailNode);
+            }
+            return res;
+        }
+
+        private Node popTail(final int level, final Node node) {
+            final int child = ((size - 2) >>> level) & MASK;
+            if (level > BITS) {
+                final Node newChild = popTail(level - BITS, (Node) node.array[child]);
+                if (newChild == null && child == 0)
+                    return null;
+                final Node res = new Node(node.array.clone());
+                res.array[child] = newChild;
+                return res;
+            } else if (child == 0) {
+                return null;
+            }
+            final Node res = new Node(node.array.clone());
+            res.array[child] = null;
+            return res;
+        }
+
+        private static Node path(final int level, final Node node) {
+            return path(level, node, null);
+        }
+
+        private static Node path(final int level, final Node node, final Object edit) {
+            if (level == 0)
+                return node;
+            final Node res = new Node(new Object[WIDTH], edit);
+            res.array[0] = path(level - BITS, node, edit);
+            return res;
+        }
+
+        private static final class Node {
+            private final Object[] array;
+            private final Object edit;
+
+            Node (final Object[] array) {
+                this(array, null);
+            }
+
+            Node (final Object[] array, final Object edit) {
+                this.array = array;
+                this.edit = edit;
+            }
+        }
+
+        private static final class Builder<T> implements Transient<T, Vector<T>> {
+            private Object edit = new Object();
+            private int size;
+            private int shift;
+            private Node root;
+            private Object[] tail;
+
+            Builder (final Trie<T> vector) {
+                this.size = vector.size;
+                this.shift = vector.shift;
+                this.root = new Node(vector.root.array.clone(), edit);
+                this.tail = Arrays.copyOf(vector.tail, WIDTH);
+            }
+
+            @Override
+            public Builder<T> add(final T value) {
+                if (edit == null)
+                    throw new IllegalStateException("builder used after persistent()");
+                if (size - tailOffset() < WIDTH) {
+                    tail[size & MASK] = value;
+                    size ++;
+                    return this;
+                }
+
+                final Node tailNode = new Node(tail, edit);
+                tail = new Object[WIDTH];
+                tail[0] = value;
+                if ((size >>> BITS) > (1 << shift)) {
+                    final Node newRoot = new Node(new Object[WIDTH], edit);
+                    newRoot.array[0] = root;
+                    newRoot.array[1] = path(shift, tailNode, edit);
+                    root = newRoot;
+                    shift += BITS;
+                } else {
+                    root = pushTail(shift, root, tailNode);
+                }
+                size ++;
+                return this;
+            }
+
+            @Override
+            public Vector<T> persistent() {
+                if (edit == null)
+                    throw new IllegalStateException("builder used after persistent()");
+                edit = null;
+                if (size == 0)
+                    return nil();
+                return new Trie<>(size, shift, root, Arrays.copyOf(tail, size - tailOffset()));
+            }
+
+            private int tailOffset() {
+                return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+            }
+
+            private Node pushTail(final int level, final Node parent, final Node tailNode) {
+                final Node res = parent.edit == edit ? parent : new Node(parent.array.clone(), edit);
+                final int child = ((size - 1) >>> level) & MASK;
+                if (level == BITS) {
+                    res.array[child] = tailNode;
+                } else {
+                    final Node existing = (Node) res.array[child];
+                    res.array[child] = existing != null ?
+                        pushTail(level - BITS, existing, tailNode) :
+                        path(level - BITS, tailNode, edit);
+                }
+                return res;
+            }
+        }
+    }
+}
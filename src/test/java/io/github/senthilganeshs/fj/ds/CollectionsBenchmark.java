@@ -3,6 +3,7 @@ package io.github.senthilganeshs.fj.ds;
 import java.util.ArrayList;
 import java.util.Random;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 
 import org.openjdk.jmh.annotations.Benchmark;
@@ -14,6 +15,7 @@ import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
@@ -21,12 +23,12 @@ import org.openjdk.jmh.runner.options.OptionsBuilder;
 
 @BenchmarkMode(Mode.AverageTime)
 @OutputTimeUnit(TimeUnit.MILLISECONDS)
-@Fork(jvmArgs = {"-Xms2G", "-Xmx2G"})
+@Fork(jvmArgs = {"-Xms4G", "-Xmx4G"})
 public class CollectionsBenchmark {
 
     @State(Scope.Thread)
     public static class IntValues {
-        @Param({"100000"})
+        @Param({"100000", "1000000", "10000000"})
         int size;
         
         java.util.List<Integer> array;
@@ -44,6 +46,241 @@ public class CollectionsBenchmark {
         }
     }
     
+    @State(Scope.Thread)
+    public static class ListValues {
+        @Param({"100", "1000000"})
+        int size;
+        
+        List<Integer> list;
+        
+        FingerTree<Integer> tree;
+        
+        @Setup
+        public void setup() {
+            list = List.nil();
+            tree = FingerTree.nil();
+            for (int i = 0; i < size; i ++) {
+                list = list.build(i);
+                tree = tree.pushBack(i);
+            }
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class IndexedValues {
+        @Param({"100000"})
+        int size;
+        
+        java.util.List<Integer> array;
+        
+        Vector<Integer> vector;
+        
+        int[] indexes;
+        
+        @Setup
+        public void setup() {
+            array = new ArrayList<Integer>(size);
+            vector = Vector.nil();
+            indexes = new int[size];
+            Random rnd = new Random(0);
+            for (int i = 0; i < size; i ++) {
+                array.add(i);
+                vector = vector.append(i);
+                indexes[i] = rnd.nextInt(size);
+            }
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class NumericValues {
+        @Param({"1000000"})
+        int size;
+        
+        Array<Integer> boxed;
+        
+        IntArray ints;
+        
+        @Setup
+        public void setup() {
+            boxed = new Array.NonEmpty<>(size);
+            ints = IntArray.of();
+            Random rnd = new Random(0);
+            for (int i = 0; i < size; i ++) {
+                int value = rnd.nextInt(size);
+                boxed.build(value);
+                ints.append(value);
+            }
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class SetPairs {
+        @Param({"300000"})
+        int size;
+        
+        Set.AVLTree<Integer> first;
+        
+        Set.AVLTree<Integer> second;
+        
+        TreeSet<Integer> firstTree;
+        
+        TreeSet<Integer> secondTree;
+        
+        int[] probes;
+        
+        @Setup
+        public void setup() {
+            java.util.List<Integer> left = new ArrayList<>(size);
+            java.util.List<Integer> right = new ArrayList<>(size);
+            Random rnd = new Random(0);
+            for (int i = 0; i < size; i ++) {
+                left.add(rnd.nextInt(4 * size));
+                right.add(rnd.nextInt(4 * size));
+            }
+            first = (Set.AVLTree<Integer>) Set.of(left);
+            second = (Set.AVLTree<Integer>) Set.of(right);
+            firstTree = new TreeSet<>(left);
+            secondTree = new TreeSet<>(right);
+            probes = new int[1024];
+            for (int i = 0; i < probes.length; i ++) {
+                probes[i] = rnd.nextInt(4 * size);
+            }
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class StringValues {
+        @Param({"100000"})
+        int size;
+        
+        java.util.List<String> keys;
+        
+        HashSet<String> hashSet;
+        
+        HashMap<String, Integer> hashMap;
+        
+        Set<String> set;
+        
+        java.util.Map<String, Integer> javaUtilHashMap;
+        
+        @Setup
+        public void setup() {
+            keys = new ArrayList<>(size);
+            Random rnd = new Random(0);
+            for (int i = 0; i < size; i ++) {
+                keys.add("entitlement/" + rnd.nextInt(size) + "/" + i);
+            }
+            hashSet = HashSet.of(keys);
+            hashMap = HashMap.nil();
+            javaUtilHashMap = new java.util.HashMap<>();
+            for (int i = 0; i < size; i ++) {
+                hashMap = hashMap.put(keys.get(i), i);
+                javaUtilHashMap.put(keys.get(i), i);
+            }
+            set = Set.of(keys);
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class Records {
+        @Param({"100000"})
+        int size;
+        
+        List<Maybe<Integer>> valid;
+        
+        List<Maybe<Integer>> failing;
+        
+        @Setup
+        public void setup() {
+            valid = List.nil();
+            failing = List.nil();
+            for (int i = 0; i < size; i ++) {
+                valid = valid.build(Maybe.some(i));
+                failing = failing.build(i == size / 10 ? Maybe.nothing() : Maybe.some(i));
+            }
+        }
+    }
+    
+    @State(Scope.Benchmark)
+    public static class ParallelValues {
+        @Param({"1", "2", "4", "8", "16", "32"})
+        int parallelism;
+        
+        @Param({"1000000"})
+        int size;
+        
+        ForkJoinPool pool;
+        
+        Array<Integer> array;
+        
+        Set<Integer> set;
+        
+        @Setup
+        public void setup() {
+            pool = new ForkJoinPool(parallelism);
+            array = new Array.NonEmpty<>(size);
+            for (int i = 0; i < size; i ++) {
+                array.build(i);
+            }
+            set = Set.of(array);
+        }
+        
+        @TearDown
+        public void tearDown() {
+            pool.shutdown();
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class Encoded {
+        @Param({"1000000"})
+        int size;
+        
+        Set<Integer> set;
+        
+        byte[] bytes;
+        
+        @Setup
+        public void setup() throws java.io.IOException {
+            final java.util.List<Integer> values = new ArrayList<>(size);
+            final Random rnd = new Random(0);
+            for (int i = 0; i < size; i ++) {
+                values.add(rnd.nextInt());
+            }
+            set = Set.of(values);
+            bytes = Codec.set(Codec.ints()).toBytes(set);
+        }
+    }
+    
+    @State(Scope.Benchmark)
+    public static class MappedValues {
+        @Param({"10000000"})
+        int size;
+        
+        Set<Integer> set;
+        
+        java.nio.file.Path file;
+        
+        MappedSet<Integer> mapped;
+        
+        @Setup
+        public void setup() throws java.io.IOException {
+            final java.util.List<Integer> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i ++) {
+                values.add(i * 3);
+            }
+            set = Set.of(values);
+            file = java.nio.file.Files.createTempFile("benchmark", ".set");
+            MappedSet.write(file, set, Codec.ints());
+            mapped = MappedSet.open(file, Codec.ints());
+        }
+        
+        @TearDown
+        public void tearDown() throws java.io.IOException {
+            java.nio.file.Files.delete(file);
+        }
+    }
+    
     public static void main(String[] args) throws RunnerException {
         Options opt = new OptionsBuilder()
             .include(CollectionsBenchmark.class.getSimpleName())
@@ -58,6 +295,13 @@ public class CollectionsBenchmark {
         }
     }
     
+    @Benchmark
+    public void iterableSetParallel(final IntValues input) {
+        if (!Set.of(input.array, ForkJoinPool.commonPool()).contains(input.find)) {
+            throw new RuntimeException("failed to check the value in set");
+        }
+    }
+    
     @Benchmark
     public void javaUtilTreeSet (final IntValues input) {
         if (!(new TreeSet<>(input.array)).contains(input.find)) {
@@ -82,4 +326,403 @@ public class CollectionsBenchmark {
             set.contains(rnd.nextInt(input.size));
         }
     }
-}
\ No newline at end of file
+    
+    @Benchmark
+    public int listFoldl (final ListValues input) {
+        return input.list.foldl(0, (r, i) -> r + i);
+    }
+    
+    @Benchmark
+    public Collection<Integer> listMap (final ListValues input) {
+        return input.list.map(i -> i + 1);
+    }
+    
+    @Benchmark
+    public Collection<Integer> listFilter (final ListValues input) {
+        return input.list.filter(i -> i % 2 == 0);
+    }
+    
+    @Benchmark
+    public int listLength (final ListValues input) {
+        return input.list.length();
+    }
+    
+    @Benchmark
+    public Collection<Integer> listConcat (final ListValues input) {
+        return input.list.concat(input.list);
+    }
+    
+    @Benchmark
+    public FingerTree<Integer> fingerTreeConcat (final ListValues input) {
+        return input.tree.concat(input.tree);
+    }
+    
+    @Benchmark
+    public Collection<Integer> listSliceMiddle (final ListValues input) {
+        return input.list.slice(input.size / 3, input.size / 3);
+    }
+    
+    @Benchmark
+    public FingerTree<Integer> fingerTreeSliceMiddle (final ListValues input) {
+        return input.tree.slice(input.size / 3, input.size / 3);
+    }
+    
+    @Benchmark
+    public Vector<Integer> vectorAppend (final IndexedValues input) {
+        Vector<Integer> vector = Vector.nil();
+        for (int i = 0; i < input.size; i ++) {
+            vector = vector.append(i);
+        }
+        return vector;
+    }
+    
+    @Benchmark
+    public Vector<Integer> vectorTransientAppend (final IndexedValues input) {
+        final Transient<Integer, Vector<Integer>> vector = Vector.transientOf();
+        for (int i = 0; i < input.size; i ++) {
+            vector.add(i);
+        }
+        return vector.persistent();
+    }
+    
+    @Benchmark
+    public long arrayPages (final NumericValues input) {
+        long sum = 0;
+        for (int page = 0; page < input.size; page += 1000) {
+            sum += input.boxed.slice(page, 1000).at(0).foldl(0, (r, i) -> i);
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    public Array<Integer> arrayShiftAppend (final IndexedValues input) {
+        final Array<Integer> queue = new Array.NonEmpty<>(16);
+        for (int i = 0; i < input.size; i ++) {
+            queue.build(i);
+            queue.build(i);
+            queue.shift();
+        }
+        return queue;
+    }
+    
+    @Benchmark
+    public Set<Integer> iterableSetInsert (final IndexedValues input) {
+        Set<Integer> set = Set.of();
+        for (int index : input.indexes) {
+            set = set.build(index);
+        }
+        return set;
+    }
+    
+    @Benchmark
+    public Set<Integer> iterableSetTransientInsert (final IndexedValues input) {
+        final Transient<Integer, Set<Integer>> set = Set.transientOf();
+        for (int index : input.indexes) {
+            set.add(index);
+        }
+        return set.persistent();
+    }
+    
+    @Benchmark
+    public java.util.List<Integer> javaUtilArrayListAdd (final IndexedValues input) {
+        java.util.List<Integer> array = new ArrayList<>();
+        for (int i = 0; i < input.size; i ++) {
+            array.add(i);
+        }
+        return array;
+    }
+    
+    @Benchmark
+    public int vectorRandomRead (final IndexedValues input) {
+        int sum = 0;
+        for (int index : input.indexes) {
+            sum += input.vector.at(index).foldl(0, (r, i) -> i);
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    public int javaUtilArrayListRandomRead (final IndexedValues input) {
+        int sum = 0;
+        for (int index : input.indexes) {
+            sum += input.array.get(index);
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    public int dequeWorkQueue (final IndexedValues input) {
+        //keeps a backlog of 1000 pending items while producing and consuming.
+        Deque<Integer> queue = Deque.nil();
+        int sum = 0;
+        for (int i = 0; i < input.size; i ++) {
+            queue = queue.pushBack(i);
+            if (i >= 1000) {
+                sum += queue.peekFront().foldl(0, (r, v) -> v);
+                queue = queue.popFront();
+            }
+        }
+        while (queue.length() > 0) {
+            sum += queue.peekBack().foldl(0, (r, v) -> v);
+            queue = queue.popBack();
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    public int javaUtilArrayDequeWorkQueue (final IndexedValues input) {
+        final java.util.ArrayDeque<Integer> queue = new java.util.ArrayDeque<>();
+        int sum = 0;
+        for (int i = 0; i < input.size; i ++) {
+            queue.addLast(i);
+            if (i >= 1000) {
+                sum += queue.pollFirst();
+            }
+        }
+        while (!queue.isEmpty()) {
+            sum += queue.pollLast();
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    public int boxedArraySumOfSquares (final NumericValues input) {
+        return Collection.sum(input.boxed.map(i -> i * i).filter(i -> i % 3 == 0));
+    }
+    
+    @Benchmark
+    public long intArraySumOfSquares (final NumericValues input) {
+        return input.ints.mapInt(i -> i * i).filterInt(i -> i % 3 == 0).sum();
+    }
+    
+    @Benchmark
+    public Set<Integer> iterableSetUnion (final SetPairs input) {
+        return input.first.union(input.second);
+    }
+    
+    @Benchmark
+    public Set<Integer> iterableSetUnionByBuild (final SetPairs input) {
+        return input.second.foldl((Set<Integer>) input.first, (r, i) -> r.build(i));
+    }
+    
+    @Benchmark
+    public Set<Integer> iterableSetIntersection (final SetPairs input) {
+        return input.first.intersection(input.second);
+    }
+    
+    @Benchmark
+    public Set<Integer> iterableSetDifference (final SetPairs input) {
+        return input.first.difference(input.second);
+    }
+    
+    @Benchmark
+    public java.util.Set<Integer> javaUtilTreeSetUnion (final SetPairs input) {
+        java.util.Set<Integer> res = new TreeSet<>(input.firstTree);
+        res.addAll(input.secondTree);
+        return res;
+    }
+    
+    @Benchmark
+    public HashMap<String, Integer> hashMapPut (final StringValues input) {
+        HashMap<String, Integer> map = HashMap.nil();
+        for (int i = 0; i < input.size; i ++) {
+            map = map.put(input.keys.get(i), i);
+        }
+        return map;
+    }
+    
+    @Benchmark
+    public HashMap<String, Integer> hashMapTransientPut (final StringValues input) {
+        final HashMap.Builder<String, Integer> map = HashMap.<String, Integer>nil().toTransient();
+        for (int i = 0; i < input.size; i ++) {
+            map.put(input.keys.get(i), i);
+        }
+        return map.persistent();
+    }
+    
+    @Benchmark
+    public java.util.Map<String, Integer> javaUtilHashMapPut (final StringValues input) {
+        java.util.Map<String, Integer> map = new java.util.HashMap<>();
+        for (int i = 0; i < input.size; i ++) {
+            map.put(input.keys.get(i), i);
+        }
+        return map;
+    }
+    
+    @Benchmark
+    public int hashMapGet (final StringValues input) {
+        int found = 0;
+        for (String key : input.keys) {
+            found += input.hashMap.containsKey(key) ? 1 : 0;
+        }
+        return found;
+    }
+    
+    @Benchmark
+    public int javaUtilHashMapGet (final StringValues input) {
+        int found = 0;
+        for (String key : input.keys) {
+            found += input.javaUtilHashMap.containsKey(key) ? 1 : 0;
+        }
+        return found;
+    }
+    
+    @Benchmark
+    public int hashSetContains (final StringValues input) {
+        int found = 0;
+        for (String key : input.keys) {
+            found += input.hashSet.contains(key) ? 1 : 0;
+        }
+        return found;
+    }
+    
+    @Benchmark
+    public int iterableSetContainsString (final StringValues input) {
+        int found = 0;
+        for (String key : input.keys) {
+            found += input.set.contains(key) ? 1 : 0;
+        }
+        return found;
+    }
+    
+    @Benchmark
+    public Collection<Integer> listMapFilterTake (final ListValues input) {
+        return input.list.map(i -> i * 3).filter(i -> i % 2 == 0).take(10);
+    }
+    
+    @Benchmark
+    public Collection<Integer> seqMapFilterTake (final ListValues input) {
+        return input.list.seq().map(i -> i * 3).filter(i -> i % 2 == 0).take(10).force();
+    }
+    
+    private static long work (final long r, final int i) {
+        long h = i;
+        for (int k = 0; k < 16; k ++) {
+            h = h * 31 + (h >>> 7);
+        }
+        return r + (h & 1);
+    }
+    
+    @Benchmark
+    public long arrayParallelFold (final ParallelValues input) {
+        return input.array.parallelFold(0L, CollectionsBenchmark::work, Long::sum, input.pool, 1 << 13);
+    }
+    
+    @Benchmark
+    public long setParallelFold (final ParallelValues input) {
+        return input.set.parallelFold(0L, CollectionsBenchmark::work, Long::sum, input.pool, 1 << 13);
+    }
+    
+    @Benchmark
+    public int iterableSetFloor (final SetPairs input) {
+        int res = 0;
+        for (final int probe : input.probes) {
+            res += input.first.floor(probe).foldl(0, (r, i) -> i);
+        }
+        return res;
+    }
+    
+    @Benchmark
+    public int javaUtilTreeSetFloor (final SetPairs input) {
+        int res = 0;
+        for (final int probe : input.probes) {
+            final Integer floor = input.firstTree.floor(probe);
+            res += floor == null ? 0 : floor;
+        }
+        return res;
+    }
+    
+    @Benchmark
+    public long iterableSetRangeFold (final SetPairs input) {
+        final int lo = input.size;
+        return input.first.range(lo, lo + input.size / 10).foldl(0L, (r, i) -> r + i);
+    }
+    
+    @Benchmark
+    public long javaUtilTreeSetSubSet (final SetPairs input) {
+        final int lo = input.size;
+        long res = 0;
+        for (final int i : input.firstTree.subSet(lo, lo + input.size / 10)) {
+            res += i;
+        }
+        return res;
+    }
+    
+    @Benchmark
+    public int iterableSetRangeLength (final SetPairs input) {
+        final int lo = input.size;
+        return input.first.range(lo, lo + input.size / 10).length();
+    }
+    
+    @Benchmark
+    public int javaUtilTreeSetSubSetSize (final SetPairs input) {
+        final int lo = input.size;
+        return input.firstTree.subSet(lo, lo + input.size / 10).size();
+    }
+    
+    @Benchmark
+    public Collection<Collection<Integer>> listSequenceMaybe (final Records input) {
+        return input.valid.traverse(m -> m);
+    }
+    
+    @Benchmark
+    public Maybe<Collection<Integer>> maybeSequence (final Records input) {
+        return Maybe.sequence(input.valid);
+    }
+    
+    @Benchmark
+    public Collection<Collection<Integer>> listSequenceMaybeFailing (final Records input) {
+        return input.failing.traverse(m -> m);
+    }
+    
+    @Benchmark
+    public Maybe<Collection<Integer>> maybeSequenceFailing (final Records input) {
+        return Maybe.sequence(input.failing);
+    }
+    
+    @Benchmark
+    public Either<Collection<String>, Collection<Integer>> eitherValidate (final Records input) {
+        return Either.validate(input.valid, m -> m.foldl(Either.<String, Integer>left("missing"), (r, i) -> Either.right(i)));
+    }
+    
+    @Benchmark
+    public byte[] setEncode (final Encoded input) throws java.io.IOException {
+        return Codec.set(Codec.ints()).toBytes(input.set);
+    }
+    
+    @Benchmark
+    public Set<Integer> setDecode (final Encoded input) throws java.io.IOException {
+        return Codec.set(Codec.ints()).fromBytes(input.bytes);
+    }
+    
+    @Benchmark
+    public Set<Integer> setDecodeByInserts (final Encoded input) throws java.io.IOException {
+        return Codec.list(Codec.ints()).fromBytes(input.bytes)
+            .foldl(Set.<Integer>of(), (r, i) -> r.build(i));
+    }
+    
+    @Benchmark
+    public MappedSet<Integer> mappedSetOpen (final MappedValues input) throws java.io.IOException {
+        return MappedSet.open(input.file, Codec.ints());
+    }
+    
+    @Benchmark
+    public boolean mappedSetContains (final MappedValues input) {
+        return input.mapped.contains(java.util.concurrent.ThreadLocalRandom.current().nextInt(input.size * 3));
+    }
+    
+    @Benchmark
+    public boolean iterableSetContainsLarge (final MappedValues input) {
+        return input.set.contains(java.util.concurrent.ThreadLocalRandom.current().nextInt(input.size * 3));
+    }
+    
+    @Benchmark
+    public long mappedSetRangeFold (final MappedValues input) {
+        return input.mapped.range(input.size, input.size + 30000).foldl(0L, (r, i) -> r + i);
+    }
+    
+    @Benchmark
+    public long iterableSetRangeFoldLarge (final MappedValues input) {
+        return input.set.range(input.size, input.size + 30000).foldl(0L, (r, i) -> r + i);
+    }
+}
@@ -193,4 +193,1329 @@ public class CollectionsTest {
         Assert.assertTrue(Set.of(1,2,3,4,5,6,7,8,9).contains(5));
         Assert.assertFalse(Set.of(1,2,3,4,5,6,7,8).contains(9));                
     }
+
+    @Test
+    public void testFoldWhile() throws Exception {
+        final int[] visited = { 0 };
+        Assert.assertEquals(
+            List.of(1,2,3,4,5).find(i -> { visited[0] ++; return i == 2; }), 
+            Maybe.some(2));
+        Assert.assertEquals(visited[0], 2);
+        
+        visited[0] = 0;
+        Assert.assertEquals(
+            Set.of(3,1,2,5,4).find(i -> { visited[0] ++; return i > 1; }), 
+            Maybe.some(2));
+        Assert.assertEquals(visited[0], 2);
+        
+        visited[0] = 0;
+        Assert.assertEquals(
+            Stack.newStack(new Integer[] {1,2,3,4,5})
+            .find(i -> { visited[0] ++; return i == 4; }),
+            Maybe.some(4));
+        Assert.assertEquals(visited[0], 2);
+
+        Array<Integer> array = new Array.NonEmpty<>(2);
+        List.of(1,2,3,4,5).forEach(array::build);
+        visited[0] = 0;
+        Assert.assertEquals(
+            array.find(i -> { visited[0] ++; return i == 3; }), 
+            Maybe.some(3));
+        Assert.assertEquals(visited[0], 3);
+        Assert.assertEquals(array.find(i -> i == 6), Maybe.nothing());
+        Assert.assertEquals(array.at(0), Maybe.some(1));
+        Assert.assertEquals(array.take(2).foldl(0, (r, i) -> r + i), Integer.valueOf(3));
+        
+        Assert.assertTrue(List.of(1,2,3).exists(i -> i == 3));
+        Assert.assertFalse(List.of(1,2,3).exists(i -> i == 4));
+        Assert.assertTrue(Set.of(1,2,3).forAll(i -> i < 4));
+        Assert.assertFalse(Set.of(1,2,3).forAll(i -> i < 3));
+        Assert.assertTrue(Maybe.<Integer>nothing().forAll(i -> i < 0));
+        
+        Assert.assertEquals(List.of(1,2,3,4,5).slice(1, 3), List.of(2,3,4));
+        Assert.assertEquals(List.of(1,2,3,4,5).slice(4, 3), List.of(5));
+        Assert.assertEquals(List.of(1,2,3,4,5).take(0), List.nil());
+        Assert.assertEquals(Set.of(3,1,2,5,4).take(3), Set.of(1,2,3));
+    }
+
+    @Test
+    public void testDeepStructures() throws Exception {
+        final int size = 200000;
+        List<Integer> list = List.nil();
+        Collection<Integer> stack = Stack.emptyStack();
+        for (int i = 0; i < size; i ++) {
+            list = list.build(i);
+            stack = stack.build(i);
+        }
+        
+        Assert.assertEquals(list.length(), size);
+        Assert.assertEquals(list.map(i -> i + 1).length(), size);
+        Assert.assertEquals(list.filter(i -> i % 2 == 0).length(), size / 2);
+        Assert.assertEquals(list.concat(list).length(), 2 * size);
+        Assert.assertEquals(list.find(i -> i == size - 1), Maybe.some(size - 1));
+        Assert.assertEquals(list.map(i -> i), list);
+        Assert.assertNotEquals(list.map(i -> i + 1), list);
+        Assert.assertTrue(list.toString().endsWith("," + (size - 1) + "]"));
+        
+        Assert.assertEquals(stack.length(), size);
+        Assert.assertEquals(stack.map(i -> i + 1).length(), size);
+        Assert.assertEquals(stack.filter(i -> i % 2 == 0).length(), size / 2);
+        Assert.assertEquals(stack.find(i -> i == 0), Maybe.some(0));
+    }
+
+    @Test
+    public void testFoldr() throws Exception {
+        Assert.assertEquals(
+            List.of("a","b","c").foldr("", (t, r) -> r + t), "cba");
+        Assert.assertEquals(
+            Set.of("b","c","a").foldr("", (t, r) -> r + t), "cba");
+        Assert.assertEquals(
+            Stack.newStack(new String[] {"a","b","c"}).foldr("", (t, r) -> r + t), "abc");
+        Assert.assertEquals(
+            Maybe.some("a").foldr("", (t, r) -> r + t), "a");
+        
+        Array<String> array = new Array.NonEmpty<>(4);
+        List.of("a","b","c").forEach(array::build);
+        Assert.assertEquals(array.foldr("", (t, r) -> r + t), "cba");
+        Assert.assertEquals(array.reverse().foldl("", (r, t) -> r + t), "cba");
+        
+        Assert.assertEquals(
+            Stack.newStack(new String[] {"a","b","c"}).reverse().foldl("", (r, t) -> r + t), "abc");
+        Assert.assertEquals(Set.of(3,1,2).reverse(), Set.of(1,2,3));
+        
+        List<Integer> list = List.nil();
+        for (int i = 0; i < 200000; i ++) {
+            list = list.build(i);
+        }
+        Assert.assertEquals(list.reverse().find(i -> true), Maybe.some(199999));
+        Assert.assertEquals(list.reverse().reverse(), list);
+    }
+
+    @Test
+    public void testVector() throws Exception {
+        final int size = 40000;
+        Vector<Integer> vector = Vector.nil();
+        for (int i = 0; i < size; i ++) {
+            vector = vector.append(i);
+        }
+        Assert.assertEquals(vector.length(), size);
+        for (int i = 0; i < size; i += 7) {
+            Assert.assertEquals(vector.at(i), Maybe.some(i));
+        }
+        Assert.assertEquals(vector.at(size), Maybe.nothing());
+        Assert.assertEquals(vector.at(-1), Maybe.nothing());
+        Assert.assertEquals(vector.foldl(0L, (r, i) -> r + i), Long.valueOf((long) size * (size - 1) / 2));
+        Assert.assertEquals(vector.foldr(-1, (i, r) -> r == -1 ? i : r), Integer.valueOf(size - 1));
+        
+        final Vector<Integer> updated = vector.update(1234, -1).update(size - 1, -2);
+        Assert.assertEquals(updated.at(1234), Maybe.some(-1));
+        Assert.assertEquals(updated.at(size - 1), Maybe.some(-2));
+        Assert.assertEquals(vector.at(1234), Maybe.some(1234));
+        Assert.assertNotEquals(updated, vector);
+        Assert.assertEquals(vector.update(size, 0), vector);
+        
+        Vector<Integer> popped = vector;
+        for (int i = size - 1; i >= 0; i--) {
+            Assert.assertEquals(popped.length(), i + 1);
+            Assert.assertEquals(popped.at(i), Maybe.some(i));
+            popped = popped.pop();
+        }
+        Assert.assertEquals(popped, Vector.nil());
+        Assert.assertEquals(popped.pop(), Vector.nil());
+        
+        Assert.assertEquals(Vector.of(1,2,3).map(i -> i * 2), Vector.of(2,4,6));
+        Assert.assertEquals(Vector.of(1,2,3,4,5).reverse(), Vector.of(5,4,3,2,1));
+        Assert.assertEquals(Vector.of(List.of(1,2,3)).toString(), "[1,2,3]");
+    }
+
+    @Test
+    public void testPrimitiveArrays() throws Exception {
+        final IntArray ints = IntArray.of(3, 1, 4, 1, 5);
+        Assert.assertEquals(ints.length(), 5);
+        Assert.assertEquals(ints.sum(), 14);
+        Assert.assertEquals(ints.min(), Maybe.some(1));
+        Assert.assertEquals(ints.max(), Maybe.some(5));
+        Assert.assertEquals(ints.foldInt(1, (r, i) -> r * i), 60);
+        Assert.assertEquals(ints.mapInt(i -> i * 2), IntArray.of(6, 2, 8, 2, 10));
+        Assert.assertEquals(ints.filterInt(i -> i > 1), IntArray.of(3, 4, 5));
+        Assert.assertEquals(ints.at(2), Maybe.some(4));
+        Assert.assertEquals(ints.toString(), "[3,1,4,1,5]");
+        Assert.assertEquals(IntArray.of().max(), Maybe.nothing());
+        Assert.assertEquals(IntArray.of(List.of(1, 2, 3)), IntArray.of(1, 2, 3));
+        Assert.assertEquals(IntArray.mapToInt(List.of("a", "bb"), String::length), IntArray.of(1, 2));
+        Assert.assertEquals(ints.mapToObj(i -> "" + i).foldl("", (r, t) -> r + t), "31415");
+        
+        final LongArray longs = LongArray.of(1L << 40, 2L);
+        Assert.assertEquals(longs.sum(), (1L << 40) + 2);
+        Assert.assertEquals(longs.min(), Maybe.some(2L));
+        Assert.assertEquals(longs.append(3L).length(), 3);
+        
+        final DoubleArray doubles = DoubleArray.of(0.5, 1.5, 2.0);
+        Assert.assertEquals(doubles.sum(), 4.0);
+        Assert.assertEquals(doubles.max(), Maybe.some(2.0));
+        Assert.assertEquals(doubles.mapDouble(d -> d * 2).sum(), 8.0);
+        
+        Assert.assertEquals(Collection.sum(List.of(1, 2, 3, 4)), 10);
+        Assert.assertEquals(Collection.sum(ints), 14);
+        Assert.assertEquals(Collection.sum(longs), (1L << 40) + 5);
+        Assert.assertEquals(Collection.sum(doubles), 4.0);
+
+        //int sums widen instead of wrapping around.
+        Assert.assertEquals(IntArray.of(Integer.MAX_VALUE, Integer.MAX_VALUE).sum(), 2L * Integer.MAX_VALUE);
+        final IntArray grown = IntArray.of();
+        for (int i = 0; i < 100; i ++) {
+            grown.append(i);
+        }
+        Assert.assertEquals(grown.length(), 100);
+        Assert.assertEquals(grown.at(99), Maybe.some(99));
+        Assert.assertEquals(grown.at(100), Maybe.nothing());
+        Assert.assertEquals(grown.toArray().length, 100);
+        Assert.assertNotEquals(IntArray.of(1, 2), LongArray.of(1L, 2L));
+        Assert.assertEquals(DoubleArray.of(0.5, Double.NaN), DoubleArray.of(0.5, Double.NaN));
+        Assert.assertEquals(LongArray.of(1L, 2L).hashCode(), LongArray.of(1L, 2L).hashCode());
+    }
+
+    @Test
+    public void testSetHeight() throws Exception {
+        final int size = 100000;
+        Set<Integer> set = Set.nil();
+        for (int i = 0; i < size; i ++) {
+            set = set.build(i);
+        }
+        final Set.AVLTree<Integer> tree = (Set.AVLTree<Integer>) set;
+        Assert.assertEquals(tree.size(), size);
+        Assert.assertEquals(set.length(), size);
+        Assert.assertTrue(tree.height() <= 1.45 * (Math.log(size + 2) / Math.log(2)));
+        Assert.assertEquals(set.build(5).length(), size);
+        Assert.assertEquals(Set.of(3,1,2,5,4).length(), 5);
+    }
+
+    @Test
+    public void testSetBulkLoad() throws Exception {
+        final int size = 100000;
+        final java.util.List<Integer> values = new java.util.ArrayList<>();
+        for (int i = 0; i < size; i ++) {
+            values.add(i);
+            values.add(i);
+        }
+        java.util.Collections.shuffle(values, new java.util.Random(0));
+        
+        final Set.AVLTree<Integer> shuffled = (Set.AVLTree<Integer>) Set.of(values);
+        Assert.assertEquals(shuffled.size(), size);
+        Assert.assertEquals(shuffled.height(), 17); //ceil(log2(100001))
+        Assert.assertTrue(shuffled.forAll(shuffled::contains));
+        Assert.assertEquals((int) shuffled.foldl(-1, (r, i) -> i == r + 1 ? i : Integer.MIN_VALUE), size - 1);
+        
+        final Set.AVLTree<Integer> parallel = 
+            (Set.AVLTree<Integer>) Set.of(values, java.util.concurrent.ForkJoinPool.commonPool());
+        Assert.assertEquals(parallel.size(), size);
+        Assert.assertEquals(parallel.height(), 17);
+        Assert.assertEquals(
+            parallel.foldl(0L, (r, i) -> r + i), 
+            shuffled.foldl(0L, (r, i) -> r + i));
+        
+        java.util.Collections.sort(values);
+        Assert.assertEquals(((Set.AVLTree<Integer>) Set.of(values)).size(), size);
+        Assert.assertEquals(Set.of(List.of(2, 1, 2, 3)).length(), 3);
+        Assert.assertEquals(Set.sort(List.of(5, 1, 5, 3)), List.of(1, 3, 5));
+        Assert.assertTrue(Set.of(5, 3, 1).build(2).build(4).forAll(i -> i >= 1 && i <= 5));
+        Assert.assertEquals(Set.of(5, 3, 1).build(2).build(4).length(), 5);
+    }
+
+    @Test
+    public void testSetAlgebra() throws Exception {
+        final java.util.Random rnd = new java.util.Random(0);
+        final java.util.TreeSet<Integer> first = new java.util.TreeSet<>();
+        final java.util.TreeSet<Integer> second = new java.util.TreeSet<>();
+        for (int i = 0; i < 30000; i ++) {
+            first.add(rnd.nextInt(100000));
+        }
+        for (int i = 0; i < 5000; i ++) {
+            second.add(rnd.nextInt(100000));
+        }
+        final Set.AVLTree<Integer> a = (Set.AVLTree<Integer>) Set.of(first);
+        final Set.AVLTree<Integer> b = (Set.AVLTree<Integer>) Set.of(second);
+        
+        final java.util.TreeSet<Integer> union = new java.util.TreeSet<>(first);
+        union.addAll(second);
+        final java.util.TreeSet<Integer> intersection = new java.util.TreeSet<>(first);
+        intersection.retainAll(second);
+        final java.util.TreeSet<Integer> difference = new java.util.TreeSet<>(first);
+        difference.removeAll(second);
+        
+        assertSet(a.union(b), union);
+        assertSet(b.union(a), union);
+        assertSet(a.intersection(b), intersection);
+        assertSet(b.intersection(a), intersection);
+        assertSet(a.difference(b), difference);
+        
+        final Set.AVLTree<Integer> empty = (Set.AVLTree<Integer>) Set.<Integer>nil();
+        Assert.assertSame(a.union(empty), a);
+        Assert.assertSame(empty.union(a), a);
+        Assert.assertSame(a.difference(empty), a);
+        Assert.assertEquals(a.intersection(empty).length(), 0);
+        
+        final Integer key = first.first() + 1;
+        final Set.Split<Integer> split = a.split(key);
+        assertSet(split.left(), first.headSet(key, false));
+        assertSet(split.right(), first.tailSet(key, false));
+        Assert.assertEquals(split.value(), first.contains(key) ? Maybe.some(key) : Maybe.nothing());
+        
+        final Set.AVLTree<Integer> small = (Set.AVLTree<Integer>) Set.of(1, 2);
+        final Set.AVLTree<Integer> large = (Set.AVLTree<Integer>) Set.of(first.tailSet(10, false));
+        assertSet(small.join(5, large), union(java.util.Arrays.asList(1, 2, 5), first.tailSet(10, false)));
+        assertSet(large.split(50000).left().join(50000, large.split(50000).right()), 
+            union(java.util.Arrays.asList(50000), first.tailSet(10, false)));
+    }
+    
+    private static java.util.TreeSet<Integer> union(java.util.Collection<Integer> first, java.util.Collection<Integer> second) {
+        final java.util.TreeSet<Integer> res = new java.util.TreeSet<>(first);
+        res.addAll(second);
+        return res;
+    }
+    
+    private static void assertSet(final Set.AVLTree<Integer> actual, final java.util.SortedSet<Integer> expected) {
+        Assert.assertEquals(actual.size(), expected.size());
+        Assert.assertEquals(
+            actual.foldl(new java.util.ArrayList<Integer>(), (r, i) -> { r.add(i); return r; }), 
+            new java.util.ArrayList<>(expected));
+        Assert.assertTrue(actual.height() <= 1.45 * (Math.log(expected.size() + 2) / Math.log(2)));
+    }
+
+    @Test
+    public void testHashMap() throws Exception {
+        final int size = 50000;
+        HashMap<String, Integer> map = HashMap.nil();
+        for (int i = 0; i < size; i ++) {
+            map = map.put("key" + i, i);
+        }
+        Assert.assertEquals(map.length(), size);
+        for (int i = 0; i < size; i += 3) {
+            Assert.assertEquals(map.get("key" + i), Maybe.some(i));
+        }
+        Assert.assertEquals(map.get("missing"), Maybe.nothing());
+        Assert.assertEquals(map.put("key1", 1), map);
+        Assert.assertEquals(map.put("key1", -1).get("key1"), Maybe.some(-1));
+        Assert.assertEquals(map.put("key1", -1).length(), size);
+        Assert.assertEquals(map.get("key1"), Maybe.some(1));
+        
+        HashMap<String, Integer> removed = map;
+        for (int i = 0; i < size; i += 2) {
+            removed = removed.remove("key" + i);
+        }
+        Assert.assertEquals(removed.length(), size / 2);
+        Assert.assertFalse(removed.containsKey("key0"));
+        Assert.assertTrue(removed.containsKey("key1"));
+        Assert.assertSame(removed.remove("key0"), removed);
+        Assert.assertEquals(
+            map.foldl(0L, (r, e) -> r + e.value()), 
+            Long.valueOf((long) size * (size - 1) / 2));
+        
+        //"Aa" and "BB" share the same hashCode.
+        final HashMap<String, Integer> collisions = HashMap.<String, Integer>nil()
+            .put("Aa", 1).put("BB", 2).put("AaAa", 3).put("BBBB", 4).put("AaBB", 5);
+        Assert.assertEquals(collisions.get("Aa"), Maybe.some(1));
+        Assert.assertEquals(collisions.get("BB"), Maybe.some(2));
+        Assert.assertEquals(collisions.get("AaBB"), Maybe.some(5));
+        Assert.assertEquals(collisions.remove("Aa").get("BB"), Maybe.some(2));
+        Assert.assertEquals(collisions.remove("Aa").remove("BB").length(), 3);
+        Assert.assertEquals(collisions.remove("Aa").remove("BB").get("Aa"), Maybe.nothing());
+        
+        final java.util.Map<String, Integer> source = new java.util.HashMap<>();
+        source.put("a", 1);
+        source.put("b", 2);
+        Assert.assertEquals(HashMap.of(source), HashMap.<String, Integer>nil().put("b", 2).put("a", 1));
+        Assert.assertEquals(HashMap.of(source).build(HashMap.entry("c", 3)).get("c"), Maybe.some(3));
+
+        //mapping keeps equal values, filtering keeps the map.
+        final HashMap<String, Integer> same = HashMap.<String, Integer>nil().put("a", 1).put("b", 1).put("c", 2);
+        Assert.assertEquals(same.map(HashMap.Entry::value).length(), 3);
+        Assert.assertEquals(same.map(HashMap.Entry::value).foldl(0, (r, i) -> r + i), Integer.valueOf(4));
+        final HashMap<String, Integer> ones = same.filter(e -> e.value() == 1);
+        Assert.assertEquals(ones, HashMap.<String, Integer>nil().put("a", 1).put("b", 1));
+        Assert.assertEquals(ones.get("b"), Maybe.some(1));
+    }
+    
+    @Test
+    public void testHashSet() throws Exception {
+        HashSet<String> set = HashSet.of("a", "b", "c", "a");
+        Assert.assertEquals(set.length(), 3);
+        Assert.assertTrue(set.contains("b"));
+        Assert.assertFalse(set.remove("b").contains("b"));
+        Assert.assertEquals(set.remove("b").length(), 2);
+        Assert.assertEquals(set, HashSet.of(List.of("c", "b", "a")));
+        Assert.assertEquals(set.map(String::length), HashSet.of(1));
+        Assert.assertEquals(set.filter(s -> !s.equals("a")), HashSet.of("b", "c"));
+        Assert.assertSame(set.build("a"), set);
+    }
+
+    @Test
+    public void testSeq() throws Exception {
+        List<Integer> list = List.nil();
+        for (int i = 0; i < 100000; i ++) {
+            list = list.build(i);
+        }
+        final int[] mapped = { 0 };
+        final Seq<Integer> pipeline = list.seq()
+            .map(i -> { mapped[0] ++; return i * 3; })
+            .filter(i -> i % 2 == 0)
+            .take(5);
+        Assert.assertEquals(mapped[0], 0);
+        Assert.assertEquals(pipeline.force(), List.of(0, 6, 12, 18, 24));
+        Assert.assertEquals(mapped[0], 9);
+        Assert.assertEquals(pipeline.force(), List.of(0, 6, 12, 18, 24));
+        
+        mapped[0] = 0;
+        Assert.assertEquals(list.seq().map(i -> { mapped[0] ++; return i; }).find(i -> i == 10), Maybe.some(10));
+        Assert.assertEquals(mapped[0], 11);
+        
+        Assert.assertEquals(
+            List.of(1, 2, 3).seq().flatMap(i -> List.of(i, i)).drop(1).take(4).force(), 
+            List.of(1, 2, 2, 3));
+        Assert.assertEquals(
+            List.of(1, 2, 3).seq().concat(List.of(4)).build(5).slice(1, 3).force(), 
+            List.of(2, 3, 4));
+        Assert.assertEquals(Set.of(3, 1, 2).seq().map(i -> i * 2).force(), Set.of(2, 4, 6));
+        Assert.assertEquals(List.of(1, 2, 3).seq().map(i -> i + 1).length(), 3);
+        Assert.assertEquals(List.of(1, 2, 3).seq().take(0).force(), List.nil());
+        Assert.assertTrue(Vector.of(1, 2, 3).seq().map(i -> i + 1).force() instanceof Vector);
+
+        //the list walk reads blocks back to front, whatever the size.
+        for (int n = 0; n < 300; n += 7) {
+            List<Integer> prefix = List.nil();
+            final java.util.List<Integer> expected = new java.util.ArrayList<>();
+            for (int i = 0; i < n; i ++) {
+                prefix = prefix.build(i);
+                expected.add(i);
+            }
+            Assert.assertEquals(prefix.stream().collect(java.util.stream.Collectors.toList()), expected);
+        }
+        Assert.assertEquals(list.find(i -> i == 3), Maybe.some(3));
+        Assert.assertEquals(list.foldWhile(0, (r, i) -> r + 1, r -> r < 10), Integer.valueOf(10));
+
+        //iterating pulls only as far as needed and runs each stage once.
+        mapped[0] = 0;
+        final java.util.Iterator<Integer> pulled = Vector.of(list).seq()
+            .map(i -> { mapped[0] ++; return i * 3; })
+            .filter(i -> i % 2 == 0)
+            .iterator();
+        Assert.assertEquals(pulled.next(), Integer.valueOf(0));
+        Assert.assertEquals(pulled.next(), Integer.valueOf(6));
+        Assert.assertEquals(mapped[0], 3);
+        mapped[0] = 0;
+        Assert.assertEquals(Vector.of(list).seq().map(i -> { mapped[0] ++; return i; }).stream().count(), 100000L);
+        Assert.assertEquals(mapped[0], 100000);
+        Assert.assertFalse(list.seq().filter(i -> i > 0).spliterator().hasCharacteristics(java.util.Spliterator.SIZED));
+        Assert.assertEquals(
+            List.of(1, 2, 3).seq().flatMap(i -> List.of(i, i)).drop(1).take(4).concat(List.of(9)).stream()
+                .collect(java.util.stream.Collectors.toList()),
+            java.util.Arrays.asList(1, 2, 2, 3, 9));
+    }
+
+    @Test
+    public void testParallelFold() throws Exception {
+        final int size = 100000;
+        final Array<Integer> array = new Array.NonEmpty<>(size);
+        List<Integer> list = List.nil();
+        Collection<Integer> stack = Stack.emptyStack();
+        for (int i = 0; i < size; i ++) {
+            array.build(i);
+            list = list.build(i);
+            stack = stack.build(i);
+        }
+        final Set<Integer> set = Set.of(list);
+        final long expected = (long) size * (size - 1) / 2;
+        final java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+        try {
+            for (Collection<Integer> values : java.util.Arrays.<Collection<Integer>>asList(array, list, stack, set)) {
+                Assert.assertEquals(values.parallelFold(0L, (r, i) -> r + i, Long::sum), Long.valueOf(expected));
+                Assert.assertEquals(values.parallelFold(0L, (r, i) -> r + i, Long::sum, pool, 100), Long.valueOf(expected));
+                Assert.assertEquals(values.reduce(Math::max), Maybe.some(size - 1));
+            }
+            //the combiner sees the parts in order.
+            Assert.assertEquals(
+                list.parallelFold("", (r, i) -> i < 5 ? r + i : r, String::concat, pool, 10), "01234");
+            Assert.assertEquals(
+                set.parallelFold("", (r, i) -> i < 5 ? r + i : r, String::concat, pool, 10), "01234");
+        } finally {
+            pool.shutdown();
+        }
+        
+        Assert.assertEquals(Set.of(1, 2, 3).split().length(), 3);
+        Assert.assertEquals(List.of(1, 2, 3).split().length(), 2);
+        Assert.assertEquals(
+            List.of(1, 2, 3).split().foldl("", (r, part) -> r + part.foldl("", (a, i) -> a + i)), "123");
+        Assert.assertEquals(Maybe.some(1).split().length(), 1);
+        Assert.assertEquals(Maybe.<Integer>nothing().reduce(Integer::sum), Maybe.nothing());
+        Assert.assertEquals(List.of(1, 2, 3, 4).reduce(Integer::sum), Maybe.some(10));
+    }
+
+    @Test
+    public void testIteratorsAndStreams() throws Exception {
+        final int size = 10000;
+        final Array<Integer> array = new Array.NonEmpty<>(4);
+        List<Integer> list = List.nil();
+        Collection<Integer> stack = Stack.emptyStack();
+        Vector<Integer> vector = Vector.nil();
+        HashSet<Integer> hashSet = HashSet.nil();
+        final java.util.List<Integer> expected = new java.util.ArrayList<>();
+        for (int i = 0; i < size; i ++) {
+            array.build(i);
+            list = list.build(i);
+            stack = stack.build(size - 1 - i);
+            vector = vector.append(i);
+            hashSet = hashSet.build(i);
+            expected.add(i);
+        }
+        final Set<Integer> set = Set.of(list);
+        for (Collection<Integer> values : java.util.Arrays.<Collection<Integer>>asList(array, list, stack, vector, set)) {
+            final java.util.List<Integer> iterated = new java.util.ArrayList<>();
+            for (Integer i : values.iterable()) {
+                iterated.add(i);
+            }
+            Assert.assertEquals(iterated, expected);
+            Assert.assertEquals(values.stream().collect(java.util.stream.Collectors.toList()), expected);
+            Assert.assertEquals(values.parallelStream().collect(java.util.stream.Collectors.toList()), expected);
+            Assert.assertEquals(values.spliterator().getExactSizeIfKnown(), size);
+        }
+        Assert.assertEquals(hashSet.stream().mapToLong(Integer::longValue).sum(), (long) size * (size - 1) / 2);
+        Assert.assertEquals(hashSet.parallelStream().count(), size);
+        Assert.assertEquals(HashMap.<Integer, Integer>nil().put(1, 2).put(3, 4).stream().count(), 2);
+        Assert.assertEquals(IntArray.of(1, 2, 3).stream().mapToInt(Integer::intValue).sum(), 6);
+        Assert.assertEquals(Maybe.some(1).stream().count(), 1);
+        Assert.assertEquals(Seq.of(list).filter(i -> i % 2 == 0).stream().count(), size / 2);
+        Assert.assertFalse(List.nil().iterator().hasNext());
+        Assert.assertFalse(Set.<Integer>of().iterator().hasNext());
+        Assert.assertFalse(Vector.nil().iterator().hasNext());
+        Assert.assertFalse(HashSet.nil().iterator().hasNext());
+
+        Assert.assertTrue(set.spliterator().hasCharacteristics(java.util.Spliterator.SORTED));
+        Assert.assertNull(set.spliterator().getComparator());
+        final java.util.Spliterator<Integer> parts = set.spliterator();
+        final java.util.Spliterator<Integer> prefix = parts.trySplit();
+        Assert.assertNotNull(prefix);
+        Assert.assertEquals(prefix.estimateSize() + parts.estimateSize(), size);
+
+        Assert.assertEquals(expected.stream().collect(List.collector()), list);
+        Assert.assertEquals(expected.parallelStream().collect(Vector.collector()), vector);
+        Assert.assertEquals(expected.parallelStream().collect(HashSet.collector()), hashSet);
+        Assert.assertTrue(expected.parallelStream().collect(Set.collector()).forAll(set::contains));
+        Assert.assertEquals(expected.parallelStream().collect(Set.collector()).length(), size);
+        Assert.assertEquals(
+            expected.parallelStream().collect(Array.collector()).foldl(0L, (r, i) -> r + i), 
+            Long.valueOf((long) size * (size - 1) / 2));
+        Assert.assertEquals(
+            expected.stream().collect(HashMap.collector(i -> i % 10, i -> i)).get(3), Maybe.some(size - 7));
+    }
+
+    @Test
+    public void testDeque() throws Exception {
+        final java.util.Random rnd = new java.util.Random(7);
+        final java.util.ArrayDeque<Integer> model = new java.util.ArrayDeque<>();
+        Deque<Integer> deque = Deque.nil();
+        for (int i = 0; i < 20000; i ++) {
+            switch (rnd.nextInt(6)) {
+            case 0: case 1:
+                deque = deque.pushBack(i);
+                model.addLast(i);
+                break;
+            case 2:
+                deque = deque.pushFront(i);
+                model.addFirst(i);
+                break;
+            case 3:
+                Assert.assertEquals(deque.peekFront(), model.isEmpty() ? Maybe.nothing() : Maybe.some(model.peekFirst()));
+                deque = deque.popFront();
+                model.pollFirst();
+                break;
+            default:
+                Assert.assertEquals(deque.peekBack(), model.isEmpty() ? Maybe.nothing() : Maybe.some(model.peekLast()));
+                deque = deque.popBack();
+                model.pollLast();
+            }
+            Assert.assertEquals(deque.length(), model.size());
+        }
+        Assert.assertEquals(deque.stream().collect(java.util.stream.Collectors.toList()), new java.util.ArrayList<>(model));
+        Assert.assertEquals(
+            deque.foldr(new java.util.ArrayList<Integer>(), (t, r) -> { r.add(0, t); return r; }), 
+            new java.util.ArrayList<>(model));
+
+        //a version at the balance limit, reused, still answers like the model.
+        Deque<Integer> skewed = Deque.nil();
+        for (int i = 0; i < 1000; i ++) {
+            skewed = skewed.pushBack(i);
+        }
+        for (int i = 0; i < 600; i ++) {
+            skewed = skewed.popFront();
+        }
+        final java.util.List<Integer> rest = skewed.stream().collect(java.util.stream.Collectors.toList());
+        for (int i = 0; i < 3; i ++) {
+            Assert.assertEquals(skewed.popFront().peekFront(), Maybe.some(rest.get(1)));
+            Assert.assertEquals(skewed.popBack().peekBack(), Maybe.some(rest.get(rest.size() - 2)));
+            Assert.assertEquals(skewed.pushFront(-1).popBack().length(), rest.size());
+            Assert.assertEquals(skewed.stream().collect(java.util.stream.Collectors.toList()), rest);
+        }
+
+        final Deque<Integer> before = Deque.of(1, 2, 3);
+        final Deque<Integer> after = before.popFront().pushBack(4);
+        Assert.assertEquals(before, Deque.of(1, 2, 3));
+        Assert.assertEquals(after, Deque.of(2, 3, 4));
+        Assert.assertEquals(after.toString(), "[2,3,4]");
+        Assert.assertEquals(after.reverse().foldl("", (r, i) -> r + i), "432");
+        Assert.assertEquals(after.find(i -> i > 2), Maybe.some(3));
+        Assert.assertEquals(Deque.nil().popFront(), Deque.nil());
+        Assert.assertEquals(Deque.nil().peekBack(), Maybe.nothing());
+        Assert.assertEquals(Deque.of(1).popBack().length(), 0);
+
+        final Deque<String> queue = List.newQueue(new String[] {"a", "b", "c"});
+        Assert.assertEquals(queue.peekFront(), Maybe.some("a"));
+        Assert.assertEquals(queue.popFront().foldl("", (r, t) -> r + t), "bc");
+        Assert.assertEquals(List.<String>emptyQueue().build("x").peekBack(), Maybe.some("x"));
+        Assert.assertEquals(Stack.<Integer>nil().build(1).build(2).peek(), Maybe.some(2));
+        Assert.assertEquals(Stack.<Integer>nil().build(1).build(2).pop().peek(), Maybe.some(1));
+    }
+
+    @Test
+    public void testFingerTree() throws Exception {
+        final java.util.Random rnd = new java.util.Random(11);
+        java.util.List<Integer> model = new java.util.ArrayList<>();
+        FingerTree<Integer> tree = FingerTree.nil();
+        for (int i = 0; i < 5000; i ++) {
+            switch (rnd.nextInt(8)) {
+            case 0: case 1:
+                tree = tree.pushBack(i);
+                model.add(i);
+                break;
+            case 2:
+                tree = tree.pushFront(i);
+                model.add(0, i);
+                break;
+            case 3:
+                tree = tree.popFront();
+                if (!model.isEmpty()) model.remove(0);
+                break;
+            case 4:
+                tree = tree.popBack();
+                if (!model.isEmpty()) model.remove(model.size() - 1);
+                break;
+            case 5: {
+                final int n = rnd.nextInt(50);
+                final java.util.List<Integer> other = new java.util.ArrayList<>();
+                FingerTree<Integer> otherTree = FingerTree.nil();
+                for (int k = 0; k < n; k ++) {
+                    other.add(-k);
+                    otherTree = otherTree.pushBack(-k);
+                }
+                tree = rnd.nextBoolean() ? tree.concat(otherTree) : tree.concat(List.of(other));
+                model.addAll(other);
+                break;
+            }
+            case 6: {
+                final int start = rnd.nextInt(model.size() + 1);
+                final int n = rnd.nextInt(model.size() + 1);
+                tree = tree.slice(start, n).concat(tree.drop(start + n)).concat(tree.take(start));
+                final java.util.List<Integer> res = new java.util.ArrayList<>(
+                    model.subList(start, Math.min(model.size(), start + n)));
+                res.addAll(model.subList(Math.min(model.size(), start + n), model.size()));
+                res.addAll(model.subList(0, start));
+                model = res;
+                break;
+            }
+            default:
+                if (!model.isEmpty()) {
+                    final int index = rnd.nextInt(model.size());
+                    Assert.assertEquals(tree.at(index), Maybe.some(model.get(index)));
+                }
+            }
+            Assert.assertEquals(tree.length(), model.size());
+            Assert.assertEquals(tree.peekFront(), model.isEmpty() ? Maybe.nothing() : Maybe.some(model.get(0)));
+            Assert.assertEquals(tree.peekBack(), model.isEmpty() ? Maybe.nothing() : Maybe.some(model.get(model.size() - 1)));
+        }
+        Assert.assertEquals(tree.stream().collect(java.util.stream.Collectors.toList()), model);
+        for (int i = 0; i < model.size(); i ++) {
+            Assert.assertEquals(tree.at(i), Maybe.some(model.get(i)));
+        }
+        Assert.assertEquals(
+            tree.foldr(new java.util.ArrayList<Integer>(), (t, r) -> { r.add(0, t); return r; }), model);
+        Assert.assertEquals(tree.parallelStream().collect(java.util.stream.Collectors.toList()), model);
+
+        final FingerTree<Integer> big = java.util.stream.IntStream.range(0, 100000).boxed()
+            .parallel().collect(FingerTree.collector());
+        Assert.assertEquals(big.length(), 100000);
+        Assert.assertEquals(big.at(54321), Maybe.some(54321));
+        Assert.assertEquals(big.slice(99990, 20), FingerTree.of(99990, 99991, 99992, 99993, 99994, 99995, 99996, 99997, 99998, 99999));
+        Assert.assertEquals(big.concat(big).at(100001), Maybe.some(1));
+        Assert.assertEquals(big.find(i -> i > 10), Maybe.some(11));
+        Assert.assertEquals(FingerTree.of(1, 2, 3).toString(), "[1,2,3]");
+        Assert.assertEquals(FingerTree.of(1, 2, 3).at(3), Maybe.nothing());
+        Assert.assertEquals(FingerTree.of(1, 2, 3).take(-1).length(), 0);
+
+        //the iterator walks the tree in place, in the order of the folds.
+        final java.util.Iterator<Integer> walk = big.concat(big).iterator();
+        for (int i = 0; i < 200000; i ++) {
+            Assert.assertEquals(walk.next(), Integer.valueOf(i % 100000));
+        }
+        Assert.assertFalse(walk.hasNext());
+        Assert.assertFalse(FingerTree.nil().iterator().hasNext());
+        Assert.assertEquals(FingerTree.of(1, null, 3).stream().filter(java.util.Objects::isNull).count(), 1L);
+        final java.util.Spliterator<Integer> spliterator = big.spliterator();
+        Assert.assertTrue(spliterator.hasCharacteristics(java.util.Spliterator.SIZED | java.util.Spliterator.ORDERED));
+        Assert.assertEquals(spliterator.getExactSizeIfKnown(), 100000L);
+    }
+
+    @Test
+    public void testTransients() throws Exception {
+        final java.util.Random rnd = new java.util.Random(3);
+        final java.util.TreeSet<Integer> model = new java.util.TreeSet<>();
+        final Transient<Integer, Set<Integer>> setBuilder = Set.transientOf();
+        for (int i = 0; i < 20000; i ++) {
+            final int value = rnd.nextInt(50000);
+            model.add(value);
+            setBuilder.add(value);
+        }
+        final Set<Integer> set = setBuilder.persistent();
+        Assert.assertEquals(set.length(), model.size());
+        Assert.assertEquals(set.stream().collect(java.util.stream.Collectors.toList()), new java.util.ArrayList<>(model));
+        Assert.assertTrue(((Set.AVLTree<Integer>) set).height() <= 1.45 * Math.log(model.size() + 2) / Math.log(2));
+        try {
+            setBuilder.add(1);
+            Assert.fail("builder should be retired");
+        } catch (IllegalStateException e) {
+        }
+
+        //a builder started from a persistent set leaves the set untouched.
+        final Set<Integer> small = Set.of(5, 1, 9);
+        final Set<Integer> grown = small.toTransient().add(3).add(7).add(1).persistent();
+        Assert.assertEquals(small.foldl("", (r, i) -> r + i), "159");
+        Assert.assertEquals(grown.foldl("", (r, i) -> r + i), "13579");
+        final Set<Integer> again = grown.toTransient().add(0).persistent();
+        Assert.assertEquals(grown.length(), 5);
+        Assert.assertEquals(again.length(), 6);
+
+        final Vector<Integer> appended = Vector.of(List.of(1, 2, 3));
+        Vector<Integer> expected = Vector.nil();
+        final Transient<Integer, Vector<Integer>> vectorBuilder = Vector.transientOf();
+        for (int i = 0; i < 40000; i ++) {
+            expected = expected.append(i);
+            vectorBuilder.add(i);
+        }
+        final Vector<Integer> vector = vectorBuilder.persistent();
+        Assert.assertEquals(vector, expected);
+        Assert.assertEquals(vector.at(33333), Maybe.some(33333));
+        Assert.assertEquals(vector.append(-1).at(40000), Maybe.some(-1));
+        Assert.assertEquals(vector.pop().length(), 39999);
+        final Vector<Integer> longer = vector.toTransient().add(-2).add(-3).persistent();
+        Assert.assertEquals(vector.length(), 40000);
+        Assert.assertEquals(longer.at(40001), Maybe.some(-3));
+        Assert.assertEquals(appended.toTransient().add(4).persistent(), Vector.of(1, 2, 3, 4));
+        Assert.assertEquals(appended, Vector.of(1, 2, 3));
+        Assert.assertEquals(Vector.transientOf().persistent(), Vector.nil());
+
+        final java.util.Map<String, Integer> javaMap = new java.util.HashMap<>();
+        for (int i = 0; i < 5000; i ++) {
+            javaMap.put("k" + i, i);
+        }
+        final HashMap<String, Integer> map = HashMap.of(javaMap);
+        Assert.assertEquals(map.length(), 5000);
+        Assert.assertEquals(map.get("k4321"), Maybe.some(4321));
+        final HashMap<String, Integer> updated = map.toTransient().put("k1", -1).put("new", 0).persistent();
+        Assert.assertEquals(map.get("k1"), Maybe.some(1));
+        Assert.assertEquals(updated.get("k1"), Maybe.some(-1));
+        Assert.assertEquals(updated.length(), 5001);
+        Assert.assertEquals(map.length(), 5000);
+        //the nodes the builder wrote are frozen, later updates copy them.
+        final HashMap<String, Integer> next = updated.put("new", 1).put("k2", -2);
+        Assert.assertEquals(updated.get("new"), Maybe.some(0));
+        Assert.assertEquals(updated.get("k2"), Maybe.some(2));
+        Assert.assertEquals(next.get("k2"), Maybe.some(-2));
+
+        final HashSet<String> hashSet = HashSet.of(javaMap.keySet());
+        Assert.assertEquals(hashSet.length(), 5000);
+        Assert.assertTrue(hashSet.contains("k77"));
+        Assert.assertEquals(HashSet.of("a", "b", "a").length(), 2);
+        Assert.assertEquals(hashSet.toTransient().add("x").persistent().length(), 5001);
+        Assert.assertEquals(hashSet.length(), 5000);
+
+        Assert.assertEquals(List.of(java.util.Arrays.asList(1, 2, 3)), List.of(1, 2, 3));
+        Assert.assertEquals(List.of(1).toTransient().add(2).persistent(), List.of(1, 2));
+    }
+
+    @Test
+    public void testEqualsAndHashCode() throws Exception {
+        Assert.assertEquals(List.of(1, 2, 3).hashCode(), java.util.Arrays.asList(1, 2, 3).hashCode());
+        Assert.assertNotEquals(List.of(1, 2, 3), List.of(1, 2, 4));
+        Assert.assertNotEquals(List.of(1, 2, 3), List.of(2, 3));
+
+        //different insertion orders give differently shaped trees.
+        Set<Integer> ascending = Set.of();
+        Set<Integer> descending = Set.of();
+        for (int i = 0; i < 1000; i ++) {
+            ascending = ascending.build(i);
+            descending = descending.build(999 - i);
+        }
+        Assert.assertEquals(ascending, descending);
+        Assert.assertEquals(ascending.hashCode(), descending.hashCode());
+        Assert.assertEquals(ascending.hashCode(), new java.util.TreeSet<>(ascending.stream().collect(java.util.stream.Collectors.toList())).hashCode());
+        Assert.assertNotEquals(ascending, descending.build(1000));
+        Assert.assertNotEquals(Set.of(1, 2, 3), Set.of(1, 2, 4));
+        Assert.assertNotEquals(Set.of(2, 1, 3), Set.of(2, 0, 3));
+
+        final Stack<Integer> stack = Stack.<Integer>nil().build(1).build(2);
+        Assert.assertEquals(stack, Stack.<Integer>nil().build(1).build(2));
+        Assert.assertEquals(stack.hashCode(), Stack.<Integer>nil().build(1).build(2).hashCode());
+        Assert.assertNotEquals(stack, Stack.<Integer>nil().build(2).build(1));
+        Assert.assertEquals(Stack.nil(), Stack.nil());
+
+        final Array<Integer> array = new Array.NonEmpty<>(2);
+        final Array<Integer> other = new Array.NonEmpty<>(8);
+        array.build(1).build(2);
+        other.build(1).build(2);
+        Assert.assertEquals(array, other);
+        Assert.assertEquals(array.hashCode(), other.hashCode());
+        other.build(3);
+        Assert.assertNotEquals(array, other);
+
+        Assert.assertEquals(Maybe.some(1).hashCode(), Maybe.some(1).hashCode());
+        Assert.assertEquals(Maybe.some(null), Maybe.some(null));
+        Assert.assertEquals(Either.right(1).hashCode(), Either.right(1).hashCode());
+        Assert.assertNotEquals(Either.left(1), Either.right(1));
+        Assert.assertEquals(Vector.of(1, 2).hashCode(), List.of(1, 2).hashCode());
+        Assert.assertEquals(Deque.of(1, 2).hashCode(), Deque.<Integer>nil().pushFront(2).pushFront(1).hashCode());
+        Assert.assertEquals(FingerTree.of(1, 2, 3).hashCode(), FingerTree.of(3).pushFront(2).pushFront(1).hashCode());
+        Assert.assertEquals(HashSet.of(1, 2, 3).hashCode(), HashSet.of(3, 2, 1).hashCode());
+        Assert.assertEquals(
+            HashMap.<String, Integer>nil().put("a", 1).put("b", 2).hashCode(),
+            HashMap.<String, Integer>nil().put("b", 2).put("a", 1).hashCode());
+        Assert.assertEquals(IntArray.of(1, 2).hashCode(), IntArray.of(1, 2).hashCode());
+
+        //usable as keys of hashed collections.
+        final java.util.Set<Object> keys = new java.util.HashSet<>();
+        keys.add(List.of(1, 2));
+        keys.add(descending);
+        keys.add(stack);
+        keys.add(Maybe.some("x"));
+        Assert.assertTrue(keys.contains(List.of(1, 2)));
+        Assert.assertTrue(keys.contains(ascending));
+        Assert.assertTrue(keys.contains(Stack.<Integer>nil().build(1).build(2)));
+        Assert.assertTrue(keys.contains(Maybe.some("x")));
+        Assert.assertTrue(HashSet.of(List.of(1, 2), List.of(3)).contains(List.of(1, 2)));
+    }
+
+    @Test
+    public void testSetNavigation() {
+        final java.util.Random rnd = new java.util.Random(17);
+        final java.util.TreeSet<Integer> model = new java.util.TreeSet<>();
+        for (int i = 0; i < 2000; i++) {
+            model.add(rnd.nextInt(10000));
+        }
+        final Set<Integer> set = Set.of(model);
+        final Integer[] sorted = model.toArray(new Integer[0]);
+
+        Assert.assertEquals(set.min(), Maybe.some(model.first()));
+        Assert.assertEquals(set.max(), Maybe.some(model.last()));
+        Assert.assertEquals(Set.<Integer>nil().min(), Maybe.nothing());
+        Assert.assertEquals(set.select(-1), Maybe.nothing());
+        Assert.assertEquals(set.select(sorted.length), Maybe.nothing());
+        for (int i = 0; i < sorted.length; i += 7) {
+            Assert.assertEquals(set.select(i), Maybe.some(sorted[i]));
+            Assert.assertEquals(set.rank(sorted[i]), i);
+        }
+        for (int i = 0; i < 500; i++) {
+            final int probe = rnd.nextInt(10200) - 100;
+            Assert.assertEquals(set.rank(probe), model.headSet(probe).size());
+            final Integer floor = model.floor(probe);
+            Assert.assertEquals(set.floor(probe), floor == null ? Maybe.nothing() : Maybe.some(floor));
+            final Integer ceiling = model.ceiling(probe);
+            Assert.assertEquals(set.ceiling(probe), ceiling == null ? Maybe.nothing() : Maybe.some(ceiling));
+        }
+
+        for (int i = 0; i < 100; i++) {
+            final int lo = rnd.nextInt(10000);
+            final int hi = lo + rnd.nextInt(2000) - 200;
+            final Set.Range<Integer> range = set.range(lo, hi);
+            final java.util.List<Integer> expected = lo < hi
+                ? new java.util.ArrayList<>(model.subSet(lo, hi)) : new java.util.ArrayList<>();
+            Assert.assertEquals(range.length(), expected.size());
+            Assert.assertEquals(range.foldl(new java.util.ArrayList<Integer>(), (r, t) -> { r.add(t); return r; }), expected);
+            final java.util.List<Integer> iterated = new java.util.ArrayList<>();
+            range.iterator().forEachRemaining(iterated::add);
+            Assert.assertEquals(iterated, expected);
+            final java.util.List<Integer> reversed = range.foldr(new java.util.ArrayList<Integer>(), (t, r) -> { r.add(t); return r; });
+            java.util.Collections.reverse(reversed);
+            Assert.assertEquals(reversed, expected);
+            Assert.assertEquals(range.toSet().length(), expected.size());
+            Assert.assertEquals(range.toSet(), Set.of(expected));
+            Assert.assertEquals(range.take(3).length(), Math.min(3, expected.size()));
+        }
+        Assert.assertTrue(set.range(0, 10000).contains(sorted[0]));
+        Assert.assertFalse(set.range(sorted[1], 10000).contains(sorted[0]));
+
+        //a null bound leaves that side of the range open.
+        final int middle = sorted[sorted.length / 2];
+        final Set.Range<Integer> below = set.range(null, middle);
+        final Set.Range<Integer> above = set.range(middle, null);
+        Assert.assertEquals(below.length(), model.headSet(middle).size());
+        Assert.assertEquals(above.length(), model.tailSet(middle).size());
+        Assert.assertEquals(below.toSet(), Set.of(new java.util.ArrayList<>(model.headSet(middle))));
+        Assert.assertEquals(above.toSet(), Set.of(new java.util.ArrayList<>(model.tailSet(middle))));
+        Assert.assertEquals(below.iterator().next(), model.first());
+        Assert.assertTrue(above.contains(model.last()));
+        Assert.assertFalse(below.contains(middle));
+        Assert.assertEquals(set.range(null, null).length(), model.size());
+        Assert.assertEquals(set.subSet(null, null), set);
+    }
+
+    @Test
+    public void testLength() {
+        final List<Integer> list = List.of(1, 2, 3, 4, 5);
+        Assert.assertEquals(list.length(), 5);
+        Assert.assertEquals(list.count(), 5);
+        Assert.assertEquals(List.nil().length(), 0);
+        Assert.assertEquals(Stack.<Integer>nil().build(1).build(2).pop().length(), 1);
+        Assert.assertEquals(Maybe.some(1).length(), 1);
+        Assert.assertEquals(Maybe.nothing().length(), 0);
+        Assert.assertEquals(Either.right(1).length(), 1);
+        Assert.assertEquals(Either.left(1).length(), 0);
+
+        final Array<Integer> array = new Array.NonEmpty<>(2);
+        array.build(1).build(2).build(3);
+        Assert.assertEquals(array.length(), 3);
+        array.remove(0);
+        Assert.assertEquals(array.length(), 2);
+        final Collection<Integer> doubled = array.map(i -> i * 2);
+        Assert.assertEquals(doubled.length(), 2);
+        Assert.assertEquals(doubled.foldl(0, Integer::sum).intValue(), 10);
+
+        Assert.assertEquals(list.slice(3, 10), List.of(4, 5));
+        Assert.assertEquals(list.slice(10, 2), List.nil());
+        Assert.assertEquals(list.slice(-1, 2), List.of(1, 2));
+        Assert.assertEquals(list.slice(1, -1), List.nil());
+        Assert.assertEquals(list.drop(2), List.of(3, 4, 5));
+        Assert.assertEquals(list.drop(-2), list);
+        Assert.assertEquals(list.drop(7), List.nil());
+        Assert.assertEquals(list.take(0), List.nil());
+        Assert.assertEquals(list.take(2), List.of(1, 2));
+        Assert.assertEquals(Set.of(5, 3, 1, 4, 2).drop(3).length(), 2);
+    }
+
+    @Test
+    public void testArrayViews() {
+        final Array<Integer> array = new Array.NonEmpty<>(4);
+        for (int i = 0; i < 10; i++) {
+            array.build(i);
+        }
+        final Array<Integer> page = array.slice(2, 3);
+        Assert.assertEquals(page.length(), 3);
+        Assert.assertEquals(page.at(0), Maybe.some(2));
+        Assert.assertEquals(page.at(3), Maybe.nothing());
+        Assert.assertEquals(page.foldl(0, Integer::sum).intValue(), 9);
+        Assert.assertEquals(page.foldr("", (t, r) -> r + t), "432");
+        Assert.assertEquals(page.stream().mapToInt(i -> i).sum(), 9);
+        Assert.assertEquals(array.slice(8, 5).length(), 2);
+        Assert.assertEquals(array.slice(12, 5).length(), 0);
+        Assert.assertEquals(array.drop(7).foldl(0, Integer::sum).intValue(), 24);
+        Assert.assertEquals(array.take(2).slice(1, 5).at(0), Maybe.some(1));
+
+        //writes to the parent are not seen by the view.
+        array.remove(2);
+        array.build(10);
+        Assert.assertEquals(page.at(0), Maybe.some(2));
+        Assert.assertEquals(array.at(2), Maybe.some(3));
+        Assert.assertEquals(array.length(), 10);
+
+        //and writes to the view are not seen by the parent.
+        final Array<Integer> head = array.take(3);
+        head.build(100);
+        head.remove(0);
+        Assert.assertEquals(head.foldl("", (r, t) -> r + t + ","), "1,3,100,");
+        Assert.assertEquals(array.at(0), Maybe.some(0));
+        Assert.assertEquals(array.at(3), Maybe.some(4));
+
+        //shift moves the window and build reuses the space in front.
+        final Array<Integer> queue = new Array.NonEmpty<>(4);
+        for (int i = 0; i < 1000; i++) {
+            queue.build(i);
+            queue.build(i);
+            queue.shift();
+        }
+        Assert.assertEquals(queue.length(), 1000);
+        Assert.assertEquals(queue.at(0), Maybe.some(500));
+        Assert.assertEquals(queue.compact().at(999), Maybe.some(999));
+        Assert.assertEquals(queue.compact().length(), 1000);
+        Assert.assertEquals(queue.drop(999), queue.slice(999, 1).compact());
+    }
+
+    @Test
+    public void testShortCircuitTraverse() {
+        Assert.assertEquals(
+            Maybe.sequence(List.of(Maybe.some(1), Maybe.some(2))),
+            Maybe.some(List.of(1, 2)));
+        Assert.assertEquals(Maybe.sequence(List.<Maybe<Integer>>nil()), Maybe.some(List.nil()));
+
+        final int[] visited = { 0 };
+        Assert.assertEquals(
+            Maybe.traverse(List.of(1, 2, 3, 4), i -> {
+                visited[0] ++;
+                return i == 2 ? Maybe.<Integer>nothing() : Maybe.some(i);
+            }),
+            Maybe.nothing());
+        Assert.assertEquals(visited[0], 2);
+
+        visited[0] = 0;
+        Assert.assertEquals(
+            Either.traverse(List.of("1", "x", "3", "y"), s -> {
+                visited[0] ++;
+                return s.matches("[0-9]+") ? Either.<String, Integer>right(Integer.valueOf(s)) : Either.left(s);
+            }),
+            Either.left("x"));
+        Assert.assertEquals(visited[0], 2);
+        Assert.assertEquals(
+            Either.sequence(Vector.of(Either.<String, Integer>right(1), Either.right(2))),
+            Either.right(Vector.of(1, 2)));
+
+        Assert.assertEquals(
+            Either.validate(List.of("1", "x", "3", "y"),
+                s -> s.matches("[0-9]+") ? Either.<String, Integer>right(Integer.valueOf(s)) : Either.left(s)),
+            Either.left(List.of("x", "y")));
+        Assert.assertEquals(
+            Either.validate(List.of("1", "2"),
+                s -> s.matches("[0-9]+") ? Either.<String, Integer>right(Integer.valueOf(s)) : Either.left(s)),
+            Either.right(List.of(1, 2)));
+        //errors from a set keep their order and duplicates, and need no ordering.
+        final Object error = new Object();
+        Assert.assertEquals(
+            Either.validate(Set.of(3, 1, 2), i -> Either.<Object, Integer>left(i == 2 ? "two" : error)),
+            Either.left(List.of(error, "two", error)));
+    }
+
+    @Test
+    public void testConcurrentArray() throws Exception {
+        final Array.Concurrent<Integer> array = Array.concurrent();
+        final int threads = 8;
+        final int each = 20000;
+        final java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(threads + 1);
+        final java.util.concurrent.CountDownLatch start = new java.util.concurrent.CountDownLatch(1);
+        final java.util.List<java.util.concurrent.Future<?>> writers = new java.util.ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int base = t * each;
+            writers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < each; i++) {
+                    array.build(base + i);
+                }
+                return null;
+            }));
+        }
+        final java.util.concurrent.Future<Boolean> reader = pool.submit(() -> {
+            start.await();
+            boolean consistent = true;
+            for (int round = 0; round < 200; round++) {
+                final int length = array.length();
+                final int folded = array.foldl(0, (r, v) -> v == null ? -1 : r + 1);
+                consistent &= folded >= length && folded <= array.length();
+            }
+            return consistent;
+        });
+        start.countDown();
+        for (final java.util.concurrent.Future<?> writer : writers) {
+            writer.get();
+        }
+        Assert.assertTrue(reader.get());
+        pool.shutdown();
+
+        Assert.assertEquals(array.length(), threads * each);
+        final boolean[] seen = new boolean[threads * each];
+        array.forEach(i -> seen[i] = true);
+        for (final boolean value : seen) {
+            Assert.assertTrue(value);
+        }
+        //each thread's values keep their order.
+        final int[] last = new int[threads];
+        java.util.Arrays.fill(last, -1);
+        for (final int value : array.iterable()) {
+            Assert.assertTrue(value % each > last[value / each]);
+            last[value / each] = value % each;
+        }
+        Assert.assertEquals(array.snapshot().length(), threads * each);
+        Assert.assertEquals(array.stream().count(), threads * each);
+        Assert.assertEquals(array.at(threads * each), Maybe.nothing());
+
+        final Array.Concurrent<String> withNull = Array.concurrent();
+        withNull.build("a").build(null).build("c");
+        Assert.assertEquals(withNull.at(1), Maybe.some(null));
+        Assert.assertEquals(withNull.foldr("", (t, r) -> r + t), "cnulla");
+    }
+
+    @Test
+    public void testRef() throws Exception {
+        final Ref<Set<Integer>> ref = Ref.of(Set.of(0));
+        final int threads = 8;
+        final int each = 2000;
+        final java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(threads);
+        final java.util.List<java.util.concurrent.Future<?>> writers = new java.util.ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int base = t * each;
+            writers.add(pool.submit(() -> {
+                for (int i = 1; i <= each; i++) {
+                    final int value = base + i;
+                    ref.update(s -> s.build(value));
+                }
+                return null;
+            }));
+        }
+        for (final java.util.concurrent.Future<?> writer : writers) {
+            writer.get();
+        }
+        pool.shutdown();
+        Assert.assertEquals(ref.get().length(), threads * each + 1);
+        Assert.assertTrue(ref.get().contains(threads * each));
+
+        //an update which returns the current value publishes nothing.
+        final Set<Integer> current = ref.get();
+        Assert.assertSame(ref.update(s -> s.build(1)), current);
+
+        final Ref<List<String>> list = Ref.of(List.of("a"));
+        final List<String> before = list.get();
+        Assert.assertSame(list.getAndUpdate(l -> l.build("b")), before);
+        Assert.assertFalse(list.compareAndSet(before, List.of("c")));
+        Assert.assertTrue(list.compareAndSet(list.get(), List.of("c")));
+        Assert.assertEquals(list.get(), List.of("c"));
+        Assert.assertEquals(before, List.of("a"));
+        Assert.assertSame(list.update(l -> l), list.get());
+        Assert.assertEquals(list.update(l -> l.build("d")), List.of("c", "d"));
+    }
+
+    @Test
+    public void testSetBuildExisting() throws Exception {
+        Set<Integer> set = Set.nil();
+        for (int i = 0; i < 1000; i ++) {
+            set = set.build(i * 7 % 1000);
+        }
+        //building a value already in the set returns the same instance.
+        for (int i = 0; i < 1000; i += 13) {
+            Assert.assertSame(set.build(i), set);
+        }
+        final Set<Integer> one = Set.of(1);
+        Assert.assertSame(one.build(1), one);
+        final Set<Integer> grown = set.build(1000);
+        Assert.assertNotSame(grown, set);
+        Assert.assertEquals(grown.length(), 1001);
+        Assert.assertEquals(set.length(), 1000);
+    }
+
+    @Test
+    public void testConcurrentStack() throws Exception {
+        for (final int width : new int[] {0, 4}) {
+            final Stack.Concurrent<Integer> stack = Stack.concurrent(width);
+            final int threads = 8;
+            final int each = 20000;
+            final java.util.concurrent.ConcurrentLinkedQueue<Integer> popped = new java.util.concurrent.ConcurrentLinkedQueue<>();
+            final java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(threads);
+            final java.util.List<java.util.concurrent.Future<?>> workers = new java.util.ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int base = t * each;
+                workers.add(pool.submit(() -> {
+                    for (int i = 0; i < each; i++) {
+                        stack.push(base + i);
+                        if (i % 2 == 1)
+                            stack.pop().forEach(popped::add);
+                    }
+                    return null;
+                }));
+            }
+            for (final java.util.concurrent.Future<?> worker : workers) {
+                worker.get();
+            }
+            pool.shutdown();
+
+            Assert.assertEquals(popped.size(), threads * each / 2);
+            Assert.assertEquals(stack.length(), threads * each / 2);
+            final boolean[] seen = new boolean[threads * each];
+            popped.forEach(i -> seen[i] = true);
+            stack.forEach(i -> {
+                Assert.assertFalse(seen[i]);
+                seen[i] = true;
+            });
+            for (final boolean value : seen) {
+                Assert.assertTrue(value);
+            }
+        }
+
+        final Stack.Concurrent<String> stack = Stack.concurrent();
+        stack.push("a").push("b");
+        final Stack<String> snapshot = stack.snapshot();
+        Assert.assertEquals(stack.pop(), Maybe.some("b"));
+        Assert.assertEquals(stack.peek(), Maybe.some("a"));
+        Assert.assertEquals(snapshot.length(), 2);
+        Assert.assertEquals(snapshot.peek(), Maybe.some("b"));
+        Assert.assertEquals(stack.pop(), Maybe.some("a"));
+        Assert.assertEquals(stack.pop(), Maybe.nothing());
+    }
+
+    @Test
+    public void testCodec() throws Exception {
+        final Codec<Integer> ints = Codec.ints();
+        Assert.assertEquals(ints.toBytes(-1).length, 1);
+        Assert.assertEquals(ints.toBytes(63).length, 1);
+        Assert.assertEquals(ints.toBytes(64).length, 2);
+        Assert.assertEquals(ints.fromBytes(ints.toBytes(Integer.MIN_VALUE)), Integer.valueOf(Integer.MIN_VALUE));
+        Assert.assertEquals(Codec.longs().fromBytes(Codec.longs().toBytes(Long.MAX_VALUE)), Long.valueOf(Long.MAX_VALUE));
+
+        final List<String> list = List.of("a", "\u00e9t\u00e9", "", "z");
+        Assert.assertEquals(Codec.list(Codec.strings()).fromBytes(Codec.list(Codec.strings()).toBytes(list)), list);
+        final Stack<Integer> stack = Stack.<Integer>nil().build(1).build(2).build(3);
+        Assert.assertEquals(Codec.stack(ints).fromBytes(Codec.stack(ints).toBytes(stack)), stack);
+        final Deque<Integer> deque = Deque.of(1, 2, 3, 4, 5);
+        Assert.assertEquals(Codec.deque(ints).fromBytes(Codec.deque(ints).toBytes(deque)), deque);
+        final Vector<Integer> vector = Vector.of(1, 2, 3);
+        Assert.assertEquals(Codec.vector(ints).fromBytes(Codec.vector(ints).toBytes(vector)), vector);
+        final FingerTree<Integer> tree = FingerTree.of(1, 2, 3);
+        Assert.assertEquals(Codec.fingerTree(ints).fromBytes(Codec.fingerTree(ints).toBytes(tree)), tree);
+        final HashSet<Integer> hashSet = HashSet.of(1, 2, 3);
+        Assert.assertEquals(Codec.hashSet(ints).fromBytes(Codec.hashSet(ints).toBytes(hashSet)), hashSet);
+        final HashMap<String, Integer> hashMap = HashMap.<String, Integer>nil().put("a", 1).put("b", 2);
+        final Codec<HashMap<String, Integer>> maps = Codec.hashMap(Codec.strings(), ints);
+        Assert.assertEquals(maps.fromBytes(maps.toBytes(hashMap)), hashMap);
+        final IntArray intArray = IntArray.of(-3, 0, 7);
+        Assert.assertEquals(Codec.intArray().fromBytes(Codec.intArray().toBytes(intArray)), intArray);
+        final LongArray longArray = LongArray.of(-3L, Long.MIN_VALUE);
+        Assert.assertEquals(Codec.longArray().fromBytes(Codec.longArray().toBytes(longArray)), longArray);
+        final DoubleArray doubleArray = DoubleArray.of(0.5, -1.25);
+        Assert.assertEquals(Codec.doubleArray().fromBytes(Codec.doubleArray().toBytes(doubleArray)), doubleArray);
+        Assert.assertEquals(Codec.intArray().fromBytes(Codec.intArray().toBytes(IntArray.of())).length(), 0);
+
+        final Codec<Array<String>> arrays = Codec.array(Codec.nullable(Codec.strings()));
+        final Array<String> array = Array.<String>concurrent().build("a").build(null).build("b").snapshot();
+        Assert.assertEquals(arrays.fromBytes(arrays.toBytes(array)), array);
+
+        final Codec<Maybe<Integer>> maybes = Codec.maybe(ints);
+        Assert.assertEquals(maybes.fromBytes(maybes.toBytes(Maybe.some(4))), Maybe.some(4));
+        Assert.assertEquals(maybes.fromBytes(maybes.toBytes(Maybe.nothing())), Maybe.nothing());
+        final Codec<Either<String, Integer>> eithers = Codec.either(Codec.strings(), ints);
+        Assert.assertEquals(eithers.fromBytes(eithers.toBytes(Either.left("no"))), Either.left("no"));
+        Assert.assertEquals(eithers.fromBytes(eithers.toBytes(Either.right(5))), Either.right(5));
+
+        //a set comes back balanced from its sorted elements, whatever the buffer size.
+        final java.util.List<Integer> values = new java.util.ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            values.add(i * 7 % 100003);
+        }
+        final Set<Integer> set = Set.of(values);
+        final Codec<Set<Integer>> sets = Codec.set(ints);
+        final byte[] bytes = sets.toBytes(set);
+        final Set<Integer> read = sets.read(new Codec.Decoder(
+            java.nio.channels.Channels.newChannel(new java.io.ByteArrayInputStream(bytes)), 1));
+        Assert.assertEquals(read, set);
+        Assert.assertEquals(((Set.AVLTree<Integer>) read).height(), ((Set.AVLTree<Integer>) set).height());
+        Assert.assertEquals(sets.fromBytes(Codec.list(ints).toBytes(List.of(3, 1, 2, 1))), Set.of(1, 2, 3));
+
+        //several values one after the other on a channel.
+        final java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+        final Codec.Encoder encoder = Codec.Encoder.of(java.nio.channels.Channels.newChannel(out));
+        Codec.list(ints).write(encoder, List.of(1, 2));
+        Codec.strings().write(encoder, "end");
+        encoder.flush();
+        final Codec.Decoder decoder = Codec.Decoder.of(
+            java.nio.channels.Channels.newChannel(new java.io.ByteArrayInputStream(out.toByteArray())));
+        Assert.assertEquals(Codec.list(ints).read(decoder), List.of(1, 2));
+        Assert.assertEquals(Codec.strings().read(decoder), "end");
+
+        try {
+            Codec.list(ints).fromBytes(java.util.Arrays.copyOf(Codec.list(ints).toBytes(List.of(1, 2)), 2));
+            Assert.fail("truncated input");
+        } catch (final java.io.EOFException e) {
+        }
+
+        //a count of 2^31 - 1 with nothing behind it runs out of input, not memory.
+        final byte[] huge = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        final java.util.List<Codec<?>> codecs = java.util.Arrays.asList(
+            Codec.strings(), Codec.set(ints), Codec.list(ints), Codec.stack(ints), Codec.deque(ints),
+            Codec.array(ints), Codec.intArray(), Codec.longArray(), Codec.doubleArray());
+        for (final Codec<?> codec : codecs) {
+            try {
+                codec.fromBytes(huge);
+                Assert.fail("bogus count");
+            } catch (final java.io.EOFException e) {
+            }
+        }
+    }
+
+    @Test
+    public void testMappedSet() throws Exception {
+        final java.nio.file.Path file = java.nio.file.Files.createTempFile("mapped", ".set");
+        try {
+            final java.util.List<Integer> values = new java.util.ArrayList<>();
+            for (int i = 0; i < 10000; i++) {
+                values.add(i * 2);
+            }
+            final Set<Integer> set = Set.of(values);
+            MappedSet.write(file, set, Codec.ints(), 16);
+            final MappedSet<Integer> mapped = MappedSet.open(file, Codec.ints());
+
+            Assert.assertEquals(mapped.length(), 10000);
+            Assert.assertTrue(mapped.contains(0));
+            Assert.assertTrue(mapped.contains(19998));
+            Assert.assertTrue(mapped.contains(5000));
+            Assert.assertFalse(mapped.contains(5001));
+            Assert.assertFalse(mapped.contains(-1));
+            Assert.assertFalse(mapped.contains(20000));
+            Assert.assertEquals(mapped.rank(5001), 2501);
+            Assert.assertEquals(mapped.rank(-5), 0);
+            Assert.assertEquals(mapped.rank(30000), 10000);
+            Assert.assertEquals(mapped.select(2500), Maybe.some(5000));
+            Assert.assertEquals(mapped.select(10000), Maybe.nothing());
+            Assert.assertEquals(mapped.floor(31), Maybe.some(30));
+            Assert.assertEquals(mapped.floor(-1), Maybe.nothing());
+            Assert.assertEquals(mapped.ceiling(31), Maybe.some(32));
+            Assert.assertEquals(mapped.ceiling(-7), Maybe.some(0));
+            Assert.assertEquals(mapped.ceiling(19999), Maybe.nothing());
+            Assert.assertEquals(mapped.min(), Maybe.some(0));
+            Assert.assertEquals(mapped.max(), Maybe.some(19998));
+
+            final Set.Range<Integer> range = mapped.range(31, 61);
+            Assert.assertEquals(range.length(), 15);
+            Assert.assertEquals((long) range.foldl(0L, (r, i) -> r + i), (long) set.range(31, 61).foldl(0L, (r, i) -> r + i));
+            Assert.assertEquals(range.foldr(List.<Integer>nil(), (i, r) -> r.build(i)), set.range(31, 61).foldr(List.<Integer>nil(), (i, r) -> r.build(i)));
+            Assert.assertEquals(range.toSet(), set.range(31, 61).toSet());
+            Assert.assertEquals(range.find(i -> i > 40), Maybe.some(42));
+            int expected = 32;
+            for (final int value : range.iterable()) {
+                Assert.assertEquals(value, expected);
+                expected += 2;
+            }
+            Assert.assertEquals(expected, 62);
+            //both kinds of set answer the open-ended folds themselves.
+            Assert.assertEquals(mapped.foldWhile(null, 7, 0, (r, i) -> r + i, r -> true), set.foldWhile(null, 7, 0, (r, i) -> r + i, r -> true));
+            Assert.assertEquals(mapped.foldr(19990, null, "", (i, r) -> r + i), set.foldr(19990, null, "", (i, r) -> r + i));
+            Assert.assertEquals(set.iterator(null, 3).next(), Integer.valueOf(0));
+            Assert.assertEquals(mapped.subSet(100, 106), Set.of(100, 102, 104));
+
+            Assert.assertEquals(mapped, set);
+            Assert.assertEquals(set, mapped);
+            Assert.assertEquals(mapped.hashCode(), set.hashCode());
+            Assert.assertEquals(mapped.toSet(), set);
+            Assert.assertSame(mapped.build(10), mapped);
+            Assert.assertTrue(mapped.build(11).contains(11));
+            Assert.assertFalse(mapped.contains(11));
+            Assert.assertEquals(mapped.stream().count(), 10000);
+
+            //any collection is sorted and deduplicated on the way out.
+            MappedSet.write(file, List.of("pear", "apple", "fig", "apple"), Codec.strings());
+            final MappedSet<String> words = MappedSet.open(file, Codec.strings());
+            Assert.assertEquals(words, Set.of("apple", "fig", "pear"));
+            Assert.assertEquals(words.toString(), "[apple,fig,pear]");
+
+            MappedSet.write(file, List.<Integer>nil(), Codec.ints());
+            final MappedSet<Integer> empty = MappedSet.open(file, Codec.ints());
+            Assert.assertEquals(empty.length(), 0);
+            Assert.assertFalse(empty.contains(1));
+            Assert.assertEquals(empty.min(), Maybe.nothing());
+            Assert.assertEquals(empty.ceiling(1), Maybe.nothing());
+            Assert.assertEquals(empty.range(0, 10).length(), 0);
+            Assert.assertFalse(empty.iterator().hasNext());
+            Assert.assertEquals(empty, Set.of(new Integer[0]));
+        } finally {
+            java.nio.file.Files.delete(file);
+        }
+    }
 }
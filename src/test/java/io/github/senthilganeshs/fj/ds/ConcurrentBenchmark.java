@@ -0,0 +1,181 @@
+package io.github.senthilganeshs.fj.ds;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Shared structures hit by all the benchmark threads at once. The thread
+ * count is set by the runner, main goes through 1 to 64.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(jvmArgs = {"-Xms4G", "-Xmx4G"})
+public class ConcurrentBenchmark {
+
+    private static final Integer VALUE = 42;
+
+    @State(Scope.Benchmark)
+    public static class Appends {
+        Array.Concurrent<Integer> array;
+
+        ConcurrentLinkedQueue<Integer> queue;
+
+        java.util.List<Integer> synchronizedList;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            array = Array.concurrent();
+            queue = new ConcurrentLinkedQueue<>();
+            synchronizedList = Collections.synchronizedList(new ArrayList<>());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedSets {
+        //percentage of operations which insert, the rest look up.
+        @Param({"10", "90"})
+        int writes;
+
+        @Param({"100000"})
+        int range;
+
+        Ref<Set<Integer>> ref;
+
+        ReentrantReadWriteLock lock;
+
+        Set<Integer> locked;
+
+        ConcurrentSkipListSet<Integer> skipList;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            final java.util.List<Integer> values = new ArrayList<>(range / 2);
+            for (int i = 0; i < range; i += 2) {
+                values.add(i);
+            }
+            ref = Ref.of(Set.of(values));
+            lock = new ReentrantReadWriteLock();
+            locked = Set.of(values);
+            skipList = new ConcurrentSkipListSet<>(values);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Stacks {
+        Stack.Concurrent<Integer> stack;
+
+        Stack.Concurrent<Integer> eliminating;
+
+        ConcurrentLinkedDeque<Integer> deque;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            stack = Stack.concurrent();
+            eliminating = Stack.concurrent(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+            deque = new ConcurrentLinkedDeque<>();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (final int threads : new int[] {1, 2, 4, 8, 16, 32, 64}) {
+            Options opt = new OptionsBuilder()
+                .include(ConcurrentBenchmark.class.getSimpleName())
+                .threads(threads)
+                .build();
+            new Runner(opt).run();
+        }
+    }
+
+    @Benchmark
+    public Object concurrentArrayAppend (final Appends input) {
+        return input.array.build(VALUE);
+    }
+
+    @Benchmark
+    public boolean concurrentLinkedQueueAppend (final Appends input) {
+        return input.queue.add(VALUE);
+    }
+
+    @Benchmark
+    public boolean synchronizedArrayListAppend (final Appends input) {
+        return input.synchronizedList.add(VALUE);
+    }
+
+    @Benchmark
+    public boolean refSetMix (final SharedSets input) {
+        final ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        final Integer value = rnd.nextInt(input.range);
+        if (rnd.nextInt(100) < input.writes)
+            return input.ref.update(s -> s.build(value)) != null;
+        return input.ref.get().contains(value);
+    }
+
+    @Benchmark
+    public boolean readWriteLockSetMix (final SharedSets input) {
+        final ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        final Integer value = rnd.nextInt(input.range);
+        if (rnd.nextInt(100) < input.writes) {
+            input.lock.writeLock().lock();
+            try {
+                input.locked = input.locked.build(value);
+                return true;
+            } finally {
+                input.lock.writeLock().unlock();
+            }
+        }
+        input.lock.readLock().lock();
+        try {
+            return input.locked.contains(value);
+        } finally {
+            input.lock.readLock().unlock();
+        }
+    }
+
+    @Benchmark
+    public boolean concurrentSkipListSetMix (final SharedSets input) {
+        final ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        final Integer value = rnd.nextInt(input.range);
+        if (rnd.nextInt(100) < input.writes)
+            return input.skipList.add(value);
+        return input.skipList.contains(value);
+    }
+
+    @Benchmark
+    public Object concurrentStackPushPop (final Stacks input) {
+        input.stack.push(VALUE);
+        return input.stack.pop();
+    }
+
+    @Benchmark
+    public Object eliminatingStackPushPop (final Stacks input) {
+        input.eliminating.push(VALUE);
+        return input.eliminating.pop();
+    }
+
+    @Benchmark
+    public Object concurrentLinkedDequePushPop (final Stacks input) {
+        input.deque.push(VALUE);
+        return input.deque.poll();
+    }
+}